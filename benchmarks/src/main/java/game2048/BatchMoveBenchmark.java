@@ -0,0 +1,132 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// BoardBatch against one board at a time. The move benchmarks slide BOARDS corpus positions
+// left (copied in fresh each time) and score in boards per microsecond: GameEngine.moveLeft,
+// the bare BitBoard calls, the scalar batch and the Vector API batch. The game benchmarks play
+// BOARDS games of random directions (the same direction for every game) to the end, with
+// GameEngines and with each batch path, and score in time per BOARDS games (the corpus does not
+// enter into them).
+// The fork adds the incubator module so BoardBatch.create() can pick the vector path.
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class BatchMoveBenchmark {
+    private static final int BOARDS = 4096;
+
+    @Param({"dense", "nearGameOver"})
+    public String corpus;
+
+    private final long[] boards = new long[BOARDS];
+    private final long[] results = new long[BOARDS], scores = new long[BOARDS];
+    private final GameEngine engine = new GameEngine(1L);
+    private final GameEngine[] engines = new GameEngine[BOARDS];
+    private final BoardBatch scalar = new BoardBatch(BOARDS, GameEngine.FOUR_PERCENT);
+    private final BoardBatch vector = BoardBatch.create(BOARDS, GameEngine.FOUR_PERCENT);
+    private final SpawnRandom directions = new SpawnRandom.SplitMix();
+    private long game;
+
+    @Setup
+    public void setup() {
+        long[] corpusBoards = BoardCorpus.boards(corpus);
+        for(int i = 0; i < BOARDS; i++) boards[i] = corpusBoards[i % corpusBoards.length];
+        for(int i = 0; i < BOARDS; i++) engines[i] = new GameEngine(4, 0, new SpawnRandom.SplitMix(), GameEngine.FOUR_PERCENT);
+        if(!(vector instanceof VectorBoardBatch)) System.err.println("Vector API not available: vector runs the scalar path");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public long[] moveEngine() {
+        for(int i = 0; i < BOARDS; i++) {
+            engine.restore(boards[i], 0);
+            engine.moveLeft();
+            results[i] = engine.getBoard();
+            scores[i] = engine.getScore();
+        }
+        return results;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public long[] moveBitBoard() {
+        for(int i = 0; i < BOARDS; i++) {
+            scores[i] += BitBoard.moveInfo(boards[i], BitBoard.LEFT) & BitBoard.SCORE_MASK;
+            results[i] = BitBoard.move(boards[i], BitBoard.LEFT);
+        }
+        return results;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public int moveScalarBatch() {
+        System.arraycopy(boards, 0, scalar.boards, 0, BOARDS);
+        return scalar.move(BitBoard.LEFT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public int moveVectorBatch() {
+        System.arraycopy(boards, 0, vector.boards, 0, BOARDS);
+        return vector.move(BitBoard.LEFT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long gamesEngine() {
+        directions.seed(game);
+        long next = game++;
+        for(GameEngine e : engines) {
+            e.reset(next);
+            next = SpawnRandom.mix(next + BoardBatch.GOLDEN_GAMMA);
+        }
+        long total = 0;
+        for(int over = 0; over < BOARDS; ) {
+            int dir = directions.nextInt(4);
+            over = 0;
+            for(GameEngine e : engines) {
+                if(e.move(dir)) e.addNewTile();
+                if(e.isGameOver()) over++;
+            }
+        }
+        for(GameEngine e : engines) total += e.getScore();
+        return total;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long gamesScalarBatch() {
+        return playOut(scalar);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long gamesVectorBatch() {
+        return playOut(vector);
+    }
+
+    private long playOut(BoardBatch batch) {
+        directions.seed(game);
+        batch.reset(game++);
+        while(batch.gameOver() < BOARDS) {
+            batch.move(directions.nextInt(4));
+            batch.spawn();
+        }
+        long total = 0;
+        for(long score : batch.scores) total += score;
+        return total;
+    }
+}
@@ -0,0 +1,75 @@
+package game2048;
+
+import java.util.Random;
+
+// Fixed board sets for the benchmarks. Every corpus is generated from a constant seed,
+// so all runs (and all machines) measure exactly the same positions.
+final class BoardCorpus {
+    static final int SIZE = 256;
+
+    private BoardCorpus() {}
+
+    static long[] boards(String name) {
+        switch(name) {
+            case "sparse": return randomBoards(11, 2, 4, 1, 3);
+            case "dense": return randomBoards(12, 12, 14, 1, 7);
+            case "nearGameOver": return nearGameOver(13);
+            case "highTile": return highTile(14);
+            default: throw new IllegalArgumentException("Unknown corpus: " + name);
+        }
+    }
+
+    // Boards with minTiles..maxTiles tiles whose exponents are in minExp..maxExp
+    private static long[] randomBoards(long seed, int minTiles, int maxTiles, int minExp, int maxExp) {
+        Random rnd = new Random(seed);
+        long[] boards = new long[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            int tiles = minTiles + rnd.nextInt(maxTiles - minTiles + 1);
+            boards[i] = scatter(rnd, 0L, tiles, minExp, maxExp);
+        }
+        return boards;
+    }
+
+    // Real positions taken from random-policy games two moves before they ended
+    private static long[] nearGameOver(long seed) {
+        MovePolicy policy = MovePolicy.random();
+        long[] boards = new long[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            Random rnd = new Random(seed + i);
+            GameEngine game = new GameEngine(seed + i);
+            game.reset();
+            long[] recent = new long[3];
+            int n = 0;
+            while(!game.isGameOver()) {
+                recent[n++ % 3] = game.getBoard();
+                game.move(policy.nextMove(game.getBoard(), rnd));
+                game.addNewTile();
+            }
+            boards[i] = recent[(n - 2 + 3) % 3];
+        }
+        return boards;
+    }
+
+    // Half-full boards that always hold at least one tile of 1024 or more
+    private static long[] highTile(long seed) {
+        Random rnd = new Random(seed);
+        long[] boards = new long[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            long board = scatter(rnd, 0L, 1, 10, BitBoard.MAX_EXPONENT);
+            boards[i] = scatter(rnd, board, 6 + rnd.nextInt(5), 1, 12);
+        }
+        return boards;
+    }
+
+    private static long scatter(Random rnd, long board, int tiles, int minExp, int maxExp) {
+        for(int t = 0; t < tiles; t++) {
+            int row, col;
+            do {
+                row = rnd.nextInt(4);
+                col = rnd.nextInt(4);
+            } while(BitBoard.exponent(board, row, col) != 0);
+            board = BitBoard.withExponent(board, row, col, minExp + rnd.nextInt(maxExp - minExp + 1));
+        }
+        return board;
+    }
+}
@@ -0,0 +1,49 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Cost of a symmetry-canonical key per position, against the raw board as key: the exact
+// canonical board (8 images, take the smallest) and a single Zobrist hash from scratch.
+// Scores are per board; see GameHashBenchmark for the incremental hashes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardHashBenchmark {
+    @Param({"sparse", "dense", "nearGameOver", "highTile"})
+    public String corpus;
+
+    private long[] boards;
+
+    @Setup
+    public void setup() {
+        boards = BoardCorpus.boards(corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public long rawKey() {
+        long acc = 0;
+        for(long board : boards) acc += board * 0x9E3779B97F4A7C15L;
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public long canonicalBoard() {
+        long acc = 0;
+        for(long board : boards) acc += BoardHash.canonical(board);
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public long zobristFromScratch() {
+        long acc = 0;
+        for(long board : boards) acc += BoardHash.hash(board);
+        return acc;
+    }
+}
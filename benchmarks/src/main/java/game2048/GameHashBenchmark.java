@@ -0,0 +1,57 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Keeping a canonical key while a game is played: the positions of real corner-policy games
+// (after every move and after every spawn) are walked in order, updating one BoardHash
+// incrementally, against computing BoardHash.canonical() afresh at each. Scores are per position.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameHashBenchmark {
+    private static final int POSITIONS = 4096;
+
+    private final long[] path = new long[POSITIONS];
+    private final BoardHash hash = new BoardHash(0L);
+
+    @Setup
+    public void setup() {
+        MovePolicy corner = MovePolicy.corner();
+        GameEngine engine = new GameEngine(21L);
+        engine.reset();
+        for(int i = 0; i < POSITIONS; ) {
+            if(engine.isGameOver()) {
+                engine.reset();
+                continue;
+            }
+            engine.move(corner.nextMove(engine.getBoard(), null));
+            path[i++] = engine.getBoard();
+            engine.addNewTile();
+            if(i < POSITIONS) path[i++] = engine.getBoard();
+        }
+        hash.reset(path[POSITIONS - 1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long incremental() {
+        long acc = 0;
+        for(long board : path) {
+            hash.update(board);
+            acc += hash.key();
+        }
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long canonicalEachTime() {
+        long acc = 0;
+        for(long board : path) acc += BoardHash.canonical(board);
+        return acc;
+    }
+}
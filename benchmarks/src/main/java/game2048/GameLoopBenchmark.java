@@ -0,0 +1,35 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// One complete random-policy game per operation, from the two starting tiles to game over:
+// a 4x4 game through BatchRunner, and a 6x6 ByteBoard game picking among the legal directions
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameLoopBenchmark {
+    private final MovePolicy policy = MovePolicy.random();
+    private final GameEngine large = new GameEngine(6, 0, new SpawnRandom.SplitMix(), GameEngine.FOUR_PERCENT);
+    private final SpawnRandom directions = new SpawnRandom.SplitMix();
+    private long game;
+
+    @Benchmark
+    public long randomGame() {
+        return BatchRunner.playGame(policy, BatchRunner.gameSeed(2048, game++));
+    }
+
+    @Benchmark
+    public long randomGame6x6() {
+        large.reset(game);
+        directions.seed(game++);
+        for(int legal = large.legalMoves(); legal != 0; legal = large.legalMoves()) {
+            large.move(GameEngine.selectBit(legal, directions.nextInt(Integer.bitCount(legal))));
+            large.addNewTile();
+        }
+        return large.getScore();
+    }
+}
@@ -0,0 +1,65 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// GameEngine.moveUp/Down/Left/Right over each board corpus; scores are per board
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+    @Param({"sparse", "dense", "nearGameOver", "highTile"})
+    public String corpus;
+
+    private long[] boards;
+    private final GameEngine engine = new GameEngine(1L);
+
+    @Setup
+    public void setup() {
+        boards = BoardCorpus.boards(corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public void moveUp(Blackhole bh) {
+        for(long board : boards) {
+            engine.restore(board, 0);
+            bh.consume(engine.moveUp());
+            bh.consume(engine.getBoard());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public void moveDown(Blackhole bh) {
+        for(long board : boards) {
+            engine.restore(board, 0);
+            bh.consume(engine.moveDown());
+            bh.consume(engine.getBoard());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public void moveLeft(Blackhole bh) {
+        for(long board : boards) {
+            engine.restore(board, 0);
+            bh.consume(engine.moveLeft());
+            bh.consume(engine.getBoard());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public void moveRight(Blackhole bh) {
+        for(long board : boards) {
+            engine.restore(board, 0);
+            bh.consume(engine.moveRight());
+            bh.consume(engine.getBoard());
+        }
+    }
+}
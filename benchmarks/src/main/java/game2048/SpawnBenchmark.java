@@ -0,0 +1,35 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// GameEngine.addNewTile spawn selection on each board corpus; scores are per spawn
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpawnBenchmark {
+    @Param({"sparse", "dense", "nearGameOver", "highTile"})
+    public String corpus;
+
+    private long[] boards;
+    private final GameEngine engine = new GameEngine(1L);
+
+    @Setup
+    public void setup() {
+        boards = BoardCorpus.boards(corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public void addNewTile(Blackhole bh) {
+        for(long board : boards) {
+            engine.restore(board, 0);
+            bh.consume(engine.addNewTile());
+            bh.consume(engine.getBoard());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.*;
+
+// Whether canonical keys pay for themselves: a fixed-depth Expectimax search (no time limit)
+// of each board in a corpus, with a fresh plain or symmetric TranspositionTable per board.
+// Scores are per searched board; the hits and lookups counters give the table hit rate.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SymmetricTableBenchmark {
+    private static final int BOARDS = 16;
+
+    @Param({"sparse", "dense"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean symmetric;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"16", "20"})
+    public int log2Slots;
+
+    private long[] boards;
+    private CountingTable table;
+    private Expectimax search;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long hits, lookups;
+    }
+
+    // Counts lookups and hits; the search itself is unchanged
+    private static final class CountingTable extends TranspositionTable {
+        final LongAdder hits = new LongAdder(), lookups = new LongAdder();
+
+        CountingTable(int log2Slots, boolean symmetric) {
+            super(log2Slots, symmetric);
+        }
+
+        @Override
+        double get(long key, int depth) {
+            double value = super.get(key, depth);
+            lookups.increment();
+            if(!Double.isNaN(value)) hits.increment();
+            return value;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        boards = java.util.Arrays.copyOf(BoardCorpus.boards(corpus), BOARDS);
+        table = new CountingTable(log2Slots, symmetric);
+        search = new Expectimax(depth, Long.MAX_VALUE / 2_000_000L, table);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int search(Counters counters) {
+        int acc = 0;
+        long hits = table.hits.sum(), lookups = table.lookups.sum();
+        for(long board : boards) {
+            table.clear();
+            acc += search.bestMove(board);
+        }
+        counters.hits += table.hits.sum() - hits;
+        counters.lookups += table.lookups.sum() - lookups;
+        return acc;
+    }
+}
@@ -0,0 +1,59 @@
+package game2048;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// UndoHistory snapshotting: records a whole corpus, then undoes back through it and redoes it.
+// Scores are per recorded position; run with -prof gc to confirm nothing is allocated.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UndoBenchmark {
+    @Param({"sparse", "dense", "nearGameOver", "highTile"})
+    public String corpus;
+
+    private long[] boards;
+    private final GameEngine engine = new GameEngine(1L);
+    private final UndoHistory history = new UndoHistory(BoardCorpus.SIZE, engine.stateWords());
+
+    @Setup
+    public void setup() {
+        boards = BoardCorpus.boards(corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public long recordThenUndo() {
+        engine.restore(0L, 0);
+        history.reset(engine);
+        for(int i = 0; i < boards.length; i++) {
+            engine.restore(boards[i], i * 4);
+            history.record(engine);
+        }
+        while(history.undo(engine)) {
+            // unwind the whole history
+        }
+        return engine.getBoard();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BoardCorpus.SIZE)
+    public long recordUndoRedo() {
+        engine.restore(0L, 0);
+        history.reset(engine);
+        for(int i = 0; i < boards.length; i++) {
+            engine.restore(boards[i], i * 4);
+            history.record(engine);
+        }
+        while(history.undo(engine)) {
+            // unwind the whole history
+        }
+        while(history.redo(engine)) {
+            // and replay it
+        }
+        return engine.getBoard();
+    }
+}
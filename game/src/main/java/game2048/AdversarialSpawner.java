@@ -0,0 +1,281 @@
+package game2048;
+
+// Hard mode: instead of a random 2 or 4 on a random empty cell, the tile (2 or 4, any empty
+// cell) that is worst for the player, found by minimax with alpha-beta pruning. The spawner
+// minimises and the player maximises Expectimax.evaluate; a position with no legal move is
+// lost and scores 0, below any evaluation.
+// Iterative deepening adds one spawn and one move per iteration until the per-spawn time
+// budget runs out; an iteration cut short is thrown away and the last complete one decides
+// (depth 1 always completes, so a spawn is never late by more than that). Children are tried
+// best-first by static evaluation, and at the root the previous iteration's choice goes first,
+// which is what makes the cut-offs bite.
+// The search runs on the spawner's own worker thread: spawn() hands it the board and waits.
+// Boards and ordering keys live in per-ply rows allocated once, so a search allocates nothing.
+//
+// Usage: java -cp game/target/classes game2048.AdversarialSpawner [games] [budget ms]
+// plays corner-policy games against the hard spawner and reports depth, nodes/s and max tiles.
+final class AdversarialSpawner implements AutoCloseable {
+    static final int MAX_DEPTH = 32;   // spawns per line
+    private static final int MAX_CHILDREN = 32;   // 16 cells x {2, 4}
+    private static final int CLOCK_MASK = 1023;   // read the clock every 1024 nodes
+    private static final double LOST = 0;
+
+    private final long budgetNanos;
+
+    // Node stack, worker thread only: row `ply` holds that node's children and their keys
+    private final long[][] children = new long[2 * MAX_DEPTH + 1][MAX_CHILDREN];
+    private final double[][] keys = new double[2 * MAX_DEPTH + 1][MAX_CHILDREN];
+    private long deadline, nodes;
+    private boolean mayAbort, aborted;
+
+    // Handoff between spawn() and the worker, guarded by `this`
+    private final Thread worker;
+    private long request;
+    private int result;
+    private boolean hasRequest, hasResult, closed;
+
+    // Statistics, read by gauges and summary() on other threads
+    private volatile int lastDepth;
+    private volatile long lastNodesPerSecond;
+    private long searches, totalNodes, totalNanos, depthSum;
+    private int maxDepthReached;
+
+    AdversarialSpawner(long budgetMillis) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        worker = new Thread(this::workLoop, "hard-spawner");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Worst tile for the player as cell * 16 + exponent (cell = row * 4 + col), or -1 if the
+    // board is full. Blocks for at most about the time budget.
+    synchronized int spawn(long board) {
+        if(closed) throw new IllegalStateException("Spawner is closed");
+        request = board;
+        hasRequest = true;
+        hasResult = false;
+        notifyAll();
+        boolean interrupted = false;
+        while(!hasResult) {
+            try {
+                wait();
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+        return result;
+    }
+
+    // Depth reached by the last search, in spawns
+    int lastDepth() {
+        return lastDepth;
+    }
+
+    long lastNodesPerSecond() {
+        return lastNodesPerSecond;
+    }
+
+    // "n spawns, depth avg a (max m), x nodes/s"
+    synchronized String summary() {
+        if(searches == 0) return "no spawns";
+        return String.format("%d spawns, depth avg %.1f (max %d), %.0f nodes/s",
+                searches, (double) depthSum / searches, maxDepthReached, totalNanos == 0 ? 0 : totalNodes * 1e9 / totalNanos);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private void workLoop() {
+        while(true) {
+            long board;
+            synchronized(this) {
+                while(!hasRequest && !closed) {
+                    try {
+                        wait();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                }
+                if(closed) return;
+                board = request;
+                hasRequest = false;
+            }
+            int placement = search(board);
+            synchronized(this) {
+                result = placement;
+                hasResult = true;
+                notifyAll();
+            }
+        }
+    }
+
+    // Worker thread: iterative deepening from the board the spawn goes on
+    private int search(long board) {
+        long start = System.nanoTime();
+        deadline = start + budgetNanos;
+        nodes = 0;
+        aborted = false;
+        long free = ~BitBoard.occupiedMask(board) & 0x1111111111111111L;
+        if(free == 0) return -1;
+
+        long best = board | Long.lowestOneBit(free);
+        int depth = 0;
+        for(int d = 1; d <= MAX_DEPTH; d++) {
+            mayAbort = d > 1;
+            long choice = root(board, d, best);
+            if(aborted) break;
+            best = choice;
+            depth = d;
+            if(System.nanoTime() >= deadline) break;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastDepth = depth;
+        lastNodesPerSecond = elapsed == 0 ? 0 : nodes * 1_000_000_000L / elapsed;
+        synchronized(this) {
+            searches++;
+            totalNodes += nodes;
+            totalNanos += elapsed;
+            depthSum += depth;
+            maxDepthReached = Math.max(maxDepthReached, depth);
+        }
+        long diff = board ^ best;
+        int bit = Long.numberOfTrailingZeros(diff) & ~3;
+        return (bit >>> 2) * 16 + (int) (diff >>> bit);
+    }
+
+    // Best spawn at this depth; `previous` (last iteration's choice) is searched first
+    private long root(long board, int depth, long previous) {
+        int n = spawns(board, 0);
+        for(int i = 0; i < n; i++) {
+            if(children[0][i] == previous) keys[0][i] = Double.NEGATIVE_INFINITY;
+        }
+        sort(0, n);
+        long best = children[0][0];
+        double beta = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            double v = player(children[0][i], depth - 1, Double.NEGATIVE_INFINITY, beta, 1);
+            if(aborted) return best;
+            if(v < beta) {
+                beta = v;
+                best = children[0][i];
+            }
+        }
+        return best;
+    }
+
+    // The player to move after a spawn: best of its moves, `depth` spawns still to search
+    private double player(long board, int depth, double alpha, double beta, int ply) {
+        if(tick()) return 0;
+        int n = 0;
+        long[] row = children[ply];
+        for(int legal = BitBoard.legalMoves(board); legal != 0; legal &= legal - 1) {
+            row[n] = BitBoard.move(board, Integer.numberOfTrailingZeros(legal));
+            keys[ply][n] = -Expectimax.evaluate(row[n]);   // best first
+            n++;
+        }
+        if(n == 0) return LOST;
+        if(depth == 0) return -keys[ply][min(ply, n)];
+        sort(ply, n);
+        double value = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            value = Math.max(value, spawner(row[i], depth, alpha, beta, ply + 1));
+            if(aborted || value >= beta) return value;
+            alpha = Math.max(alpha, value);
+        }
+        return value;
+    }
+
+    // The spawner to place a tile on an afterstate: worst of its placements for the player
+    private double spawner(long board, int depth, double alpha, double beta, int ply) {
+        if(tick()) return 0;
+        int n = spawns(board, ply);
+        sort(ply, n);
+        long[] row = children[ply];
+        double value = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            value = Math.min(value, player(row[i], depth - 1, alpha, beta, ply + 1));
+            if(aborted || value <= alpha) return value;
+            beta = Math.min(beta, value);
+        }
+        return value;
+    }
+
+    // Every 2 and 4 on every empty cell into row `ply`, keyed by their static value
+    private int spawns(long board, int ply) {
+        long free = ~BitBoard.occupiedMask(board) & 0x1111111111111111L;
+        long[] row = children[ply];
+        double[] key = keys[ply];
+        int n = 0;
+        while(free != 0) {
+            long cell = free & -free;
+            free ^= cell;
+            row[n] = board | cell;
+            key[n] = Expectimax.evaluate(row[n]);
+            n++;
+            row[n] = board | cell << 1;
+            key[n] = Expectimax.evaluate(row[n]);
+            n++;
+        }
+        return n;
+    }
+
+    // Index of the smallest key in the row
+    private int min(int ply, int n) {
+        int best = 0;
+        for(int i = 1; i < n; i++) {
+            if(keys[ply][i] < keys[ply][best]) best = i;
+        }
+        return best;
+    }
+
+    // Insertion sort of the row by key, ascending
+    private void sort(int ply, int n) {
+        long[] row = children[ply];
+        double[] key = keys[ply];
+        for(int i = 1; i < n; i++) {
+            long b = row[i];
+            double k = key[i];
+            int j = i - 1;
+            while(j >= 0 && key[j] > k) {
+                row[j + 1] = row[j];
+                key[j + 1] = key[j];
+                j--;
+            }
+            row[j + 1] = b;
+            key[j + 1] = k;
+        }
+    }
+
+    // Counts a node; true once the deadline has passed (never during depth 1)
+    private boolean tick() {
+        if((++nodes & CLOCK_MASK) == 0 && mayAbort && System.nanoTime() > deadline) aborted = true;
+        return aborted;
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        MovePolicy corner = MovePolicy.corner();
+        try(AdversarialSpawner spawner = new AdversarialSpawner(budget)) {
+            for(int g = 0; g < games; g++) {
+                GameEngine engine = new GameEngine(g);
+                engine.reset();
+                int moves = 0;
+                while(!engine.isGameOver()) {
+                    engine.move(corner.nextMove(engine.getBoard(), null));
+                    int placement = spawner.spawn(engine.getBoard());
+                    engine.placeTile(placement >>> 4, placement & 15);
+                    moves++;
+                }
+                System.out.printf("Game %d: %d moves, max tile %d, score %d; last search depth %d, %,d nodes/s%n",
+                        g, moves, BitBoard.maxTile(engine.getBoard()), engine.getScore(), spawner.lastDepth(), spawner.lastNodesPerSecond());
+            }
+            System.out.println(spawner.summary());
+        }
+    }
+}
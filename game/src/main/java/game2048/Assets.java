@@ -0,0 +1,126 @@
+package game2048;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+// Decodes every image and sound exactly once, in parallel on background threads.
+// Images are kept fully decoded and scaled copies are cached per target size (LRU), so
+// repaints and resizes never go back to disk. Sounds are kept as raw PCM and handed to the
+// AudioEngine mixer, which converts them once to its own format, so playing a sound never does
+// file I/O or decoding.
+final class Assets {
+    static final String[] IMAGES = {"entry_image.png", "win_image.jpg", "lost_image.jpg"};
+    static final String[] SOUNDS = {"into_music.wav", "background_music.wav", "move_sound.wav",
+            "win_music.wav", "lost_music.wav"};
+
+    private static final int MAX_SCALED = 16;
+
+    private static final ExecutorService loader = Executors.newFixedThreadPool(
+            Math.min(IMAGES.length + SOUNDS.length, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "asset-loader");
+                t.setDaemon(true);
+                return t;
+            });
+    private static final ConcurrentHashMap<String, CompletableFuture<Object>> loaded = new ConcurrentHashMap<>();
+    private static final Map<String, Image> scaled = new LinkedHashMap<String, Image>(32, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MAX_SCALED;
+        }
+    };
+
+    // Raw PCM for one sound file
+    static final class Sound {
+        final AudioFormat format;
+        final byte[] data;
+
+        Sound(AudioFormat format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+    }
+
+    private Assets() {}
+
+    // Starts loading everything; progress is called (on a loader thread) with done/total counts
+    static CompletableFuture<Void> preloadAll(BiConsumer<Integer, Integer> progress) {
+        int total = IMAGES.length + SOUNDS.length;
+        AtomicInteger done = new AtomicInteger();
+        CompletableFuture<?>[] all = new CompletableFuture<?>[total];
+        int i = 0;
+        for(String name : IMAGES) all[i++] = request(name).whenComplete((v, e) -> progress.accept(done.incrementAndGet(), total));
+        for(String name : SOUNDS) all[i++] = request(name).whenComplete((v, e) -> progress.accept(done.incrementAndGet(), total));
+        return CompletableFuture.allOf(all).handle((v, e) -> null);
+    }
+
+    // Decoded image, or null if it could not be read; waits if it is still loading
+    static BufferedImage image(String name) {
+        return (BufferedImage) request(name).join();
+    }
+
+    // The image scaled to exactly width x height, cached until evicted by newer sizes
+    static Image scaled(String name, int width, int height) {
+        if(width <= 0 || height <= 0) return null;
+        String key = name + "@" + width + "x" + height;
+        synchronized(scaled) {
+            Image img = scaled.get(key);
+            if(img != null) return img;
+        }
+        BufferedImage source = image(name);
+        if(source == null) return null;
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        synchronized(scaled) {
+            scaled.put(key, img);
+        }
+        return img;
+    }
+
+    // Decoded PCM, or null if the file could not be read; waits if it is still loading
+    static Sound sound(String name) {
+        return (Sound) request(name).join();
+    }
+
+    private static CompletableFuture<Object> request(String name) {
+        return loaded.computeIfAbsent(name, n -> CompletableFuture.supplyAsync(() -> load(n), loader));
+    }
+
+    private static Object load(String name) {
+        long start = System.nanoTime();
+        try {
+            return isSound(name) ? decodeSound(name) : ImageIO.read(new File(name));
+        } catch(Exception e) {
+            System.err.println("Could not load asset: " + name);
+            return null;
+        } finally {
+            Metrics.ASSET_LOAD.record(System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isSound(String name) {
+        return name.endsWith(".wav");
+    }
+
+    private static Sound decodeSound(String name) throws Exception {
+        try(AudioInputStream in = AudioSystem.getAudioInputStream(new File(name))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new Sound(in.getFormat(), out.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package game2048;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sound.sampled.*;
+
+// Software mixer for all game audio: one SourceDataLine fed by a dedicated thread that mixes
+// a fixed pool of voices from pre-decoded 16-bit stereo buffers.
+// Triggers go through a preallocated command ring, so play() never allocates and never
+// touches the audio line; overlapping effects simply take another voice.
+// Music and effects play on separate buses with fixed gains. Trigger-to-output latency is measured as the
+// time from play() until the voice's first frame is written, plus the audio still queued
+// in the line ahead of it.
+final class AudioEngine {
+    static final int BUS_MUSIC = 0, BUS_EFFECTS = 1;
+
+    static final float SAMPLE_RATE = 48000f;
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+    private static final int COMMAND_CAPACITY = 256;   // power of two
+    private static final int CMD_PLAY = 0, CMD_STOP_SOUND = 1;
+
+    private final int bufferFrames;
+    private final SourceDataLine line;
+    private final Thread mixerThread;
+    private volatile boolean running;
+
+    // Sounds, indexed by id; written before the id is handed out
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile short[][] samples = new short[0][];
+
+    // Voice pool, touched only by the mixer thread
+    private final short[][] voiceSamples;
+    private final int[] voiceSound, voicePos, voiceBus;
+    private final boolean[] voiceLoop;
+    private final long[] voiceTrigger;
+
+    // Command ring: producers serialize on `this`, the mixer thread is the only consumer
+    private final long[] commands = new long[COMMAND_CAPACITY];
+    private final long[] commandTimes = new long[COMMAND_CAPACITY];
+    private volatile long written, read;
+
+    private static final float[] BUS_GAIN = {0.8f, 1.0f};
+    private final Histogram latency = Metrics.AUDIO_LATENCY;
+
+    private AudioEngine(SourceDataLine line, int bufferFrames, int voices) {
+        this.line = line;
+        this.bufferFrames = bufferFrames;
+        voiceSamples = new short[voices][];
+        voiceSound = new int[voices];
+        voicePos = new int[voices];
+        voiceBus = new int[voices];
+        voiceLoop = new boolean[voices];
+        voiceTrigger = new long[voices];
+        mixerThread = new Thread(this::mixLoop, "audio-mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    // Opens the default output line; on machines without audio every call becomes a no-op
+    static AudioEngine open(int bufferFrames, int voices) {
+        SourceDataLine line = null;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, 2 * bufferFrames * FORMAT.getFrameSize());
+            line.start();
+        } catch(Exception e) {
+            System.err.println("Audio output unavailable: " + e.getMessage());
+            line = null;
+        }
+        AudioEngine engine = new AudioEngine(line, bufferFrames, voices);
+        if(line != null) {
+            engine.running = true;
+            engine.mixerThread.start();
+        }
+        return engine;
+    }
+
+    // Converts the named Assets sound to the mixer format (once) and returns its id, or -1
+    int sound(String name) {
+        Integer id = ids.get(name);
+        if(id != null) return id;
+        synchronized(ids) {
+            id = ids.get(name);
+            if(id != null) return id;
+            short[] pcm = convert(Assets.sound(name));
+            if(pcm == null) {
+                ids.put(name, -1);
+                return -1;
+            }
+            short[][] grown = java.util.Arrays.copyOf(samples, samples.length + 1);
+            grown[samples.length] = pcm;
+            samples = grown;
+            ids.put(name, samples.length - 1);
+            return samples.length - 1;
+        }
+    }
+
+    void play(int sound, int bus, boolean loop) {
+        if(sound >= 0) enqueue(CMD_PLAY, sound, bus, loop);
+    }
+
+    void stop(int sound) {
+        if(sound >= 0) enqueue(CMD_STOP_SOUND, sound, 0, false);
+    }
+
+    void close() {
+        running = false;
+        if(line != null) {
+            line.stop();
+            line.close();
+        }
+    }
+
+    private synchronized void enqueue(int type, int sound, int bus, boolean loop) {
+        if(!running) return;
+        long w = written;
+        if(w - read >= COMMAND_CAPACITY) return;   // mixer is stalled; drop rather than block the caller
+        int slot = (int) (w & (COMMAND_CAPACITY - 1));
+        commands[slot] = (long) type << 40 | (long) bus << 32 | (loop ? 1L << 48 : 0) | (sound & 0xFFFFFFFFL);
+        commandTimes[slot] = System.nanoTime();
+        written = w + 1;
+    }
+
+    private void mixLoop() {
+        int[] mix = new int[2 * bufferFrames];
+        byte[] out = new byte[4 * bufferFrames];
+        int bytesPerSecond = (int) (SAMPLE_RATE * FORMAT.getFrameSize());
+        while(running) {
+            drainCommands();
+            java.util.Arrays.fill(mix, 0);
+            long now = System.nanoTime();
+            long queuedNanos = (long) (line.getBufferSize() - line.available()) * 1_000_000_000L / bytesPerSecond;
+            for(int v = 0; v < voiceSamples.length; v++) {
+                short[] pcm = voiceSamples[v];
+                if(pcm == null) continue;
+                if(voiceTrigger[v] != 0) {
+                    latency.record(now - voiceTrigger[v] + queuedNanos);
+                    voiceTrigger[v] = 0;
+                }
+                float gain = BUS_GAIN[voiceBus[v]];
+                int pos = voicePos[v];
+                for(int i = 0; i < mix.length; i++) {
+                    if(pos >= pcm.length) {
+                        if(!voiceLoop[v]) {
+                            voiceSamples[v] = null;
+                            break;
+                        }
+                        pos = 0;
+                    }
+                    mix[i] += (int) (pcm[pos++] * gain);
+                }
+                voicePos[v] = pos;
+            }
+            for(int i = 0; i < mix.length; i++) {
+                int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                out[2 * i] = (byte) s;
+                out[2 * i + 1] = (byte) (s >> 8);
+            }
+            line.write(out, 0, out.length);   // blocks once the line is full, which paces the loop
+        }
+    }
+
+    private void drainCommands() {
+        long r = read, w = written;
+        for(; r < w; r++) {
+            int slot = (int) (r & (COMMAND_CAPACITY - 1));
+            long cmd = commands[slot];
+            int type = (int) (cmd >>> 40) & 0xFF, bus = (int) (cmd >>> 32) & 0xFF, sound = (int) cmd;
+            boolean loop = (cmd >>> 48 & 1) != 0;
+            switch(type) {
+                case CMD_PLAY: startVoice(sound, bus, loop, commandTimes[slot]); break;
+                case CMD_STOP_SOUND:
+                    for(int v = 0; v < voiceSamples.length; v++) if(voiceSound[v] == sound) voiceSamples[v] = null;
+                    break;
+            }
+        }
+        read = r;
+    }
+
+    // Takes a free voice, or steals the effect that has played longest
+    private void startVoice(int sound, int bus, boolean loop, long triggerTime) {
+        int target = -1, oldest = -1;
+        for(int v = 0; v < voiceSamples.length; v++) {
+            if(voiceSamples[v] == null) {
+                target = v;
+                break;
+            }
+            if(voiceBus[v] == BUS_EFFECTS && (oldest < 0 || voicePos[v] > voicePos[oldest])) oldest = v;
+        }
+        if(target < 0) target = oldest;
+        if(target < 0) return;
+        voiceSamples[target] = samples[sound];
+        voiceSound[target] = sound;
+        voicePos[target] = 0;
+        voiceBus[target] = bus;
+        voiceLoop[target] = loop;
+        voiceTrigger[target] = triggerTime;
+    }
+
+    // Any 16-bit PCM sound to interleaved stereo at SAMPLE_RATE (linear interpolation)
+    private static short[] convert(Assets.Sound sound) {
+        if(sound == null) return null;
+        AudioFormat f = sound.format;
+        byte[] data = sound.data;
+        if(f.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || f.getSampleSizeInBits() != 16) {
+            data = toSigned16(sound);
+            if(data == null) return null;
+            f = new AudioFormat(f.getSampleRate(), 16, f.getChannels(), true, false);
+        }
+        int channels = f.getChannels();
+        int frames = data.length / (2 * channels);
+        boolean big = f.isBigEndian();
+        double step = f.getSampleRate() / SAMPLE_RATE;
+        int outFrames = (int) (frames / step);
+        short[] out = new short[2 * outFrames];
+        for(int i = 0; i < outFrames; i++) {
+            double src = i * step;
+            int a = (int) src, b = Math.min(a + 1, frames - 1);
+            double t = src - a;
+            for(int c = 0; c < 2; c++) {
+                int ch = Math.min(c, channels - 1);
+                int sa = sample(data, (a * channels + ch) * 2, big), sb = sample(data, (b * channels + ch) * 2, big);
+                out[2 * i + c] = (short) Math.round(sa + (sb - sa) * t);
+            }
+        }
+        return out;
+    }
+
+    private static int sample(byte[] data, int offset, boolean bigEndian) {
+        return bigEndian ? (short) (data[offset] << 8 | data[offset + 1] & 0xFF)
+                : (short) (data[offset + 1] << 8 | data[offset] & 0xFF);
+    }
+
+    private static byte[] toSigned16(Assets.Sound sound) {
+        AudioFormat f = sound.format;
+        AudioFormat target = new AudioFormat(f.getSampleRate(), 16, f.getChannels(), true, false);
+        try(AudioInputStream in = AudioSystem.getAudioInputStream(target, new AudioInputStream(
+                new ByteArrayInputStream(sound.data), f, sound.data.length / f.getFrameSize()))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch(Exception e) {
+            System.err.println("Unsupported audio format: " + f);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package game2048;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+// Headless batch simulation: plays N seeded games across all cores with a pluggable
+// MovePolicy and prints throughput plus score and max-tile distributions.
+//
+// Usage: java -cp game/target/classes game2048.BatchRunner [games] [policy] [seed] [threads]
+//   policy is one of random, greedy, corner, expectimax, ntuple, montecarlo (see MovePolicy)
+//   -Dspawn.rng and -Dspawn.fourPercent pick the spawn generator and 4-spawn chance
+public class BatchRunner {
+    public static void main(String[] args) throws Exception {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        MovePolicy policy = MovePolicy.byName(args.length > 1 ? args[1] : "random");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 2048;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        Stats stats = run(games, policy, seed, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games on %d threads in %.2f s%n", stats.games, threads, seconds);
+        System.out.printf("Throughput: %.0f games/s, %.0f moves/s%n", stats.games / seconds, stats.moves / seconds);
+        stats.print(System.out);
+    }
+
+    // Plays games [0, games) in parallel; game i is seeded from (seed, i) so results are reproducible
+    static Stats run(long games, MovePolicy policy, long seed, int threads) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(0, games).parallel()
+                    .collect(Stats::new, (s, i) -> s.add(playGame(policy, gameSeed(seed, i))), Stats::merge))
+                    .get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Plays one game to the end and returns its result packed as score | maxExponent << 32 | moves << 40
+    static long playGame(MovePolicy policy, long seed) {
+        Random rnd = new Random(seed);   // for the policy; spawns come from the engine's own stream
+        GameEngine game = new GameEngine(seed);
+        game.reset();
+        long moves = 0;
+        while(!game.isGameOver()) {
+            int dir = policy.nextMove(game.getBoard(), rnd);
+            // An illegal choice ends the game rather than looping forever
+            if(dir < 0 || !game.move(dir)) break;
+            game.addNewTile();
+            moves++;
+        }
+        int maxExponent = Integer.numberOfTrailingZeros(BitBoard.maxTile(game.getBoard()));
+        return (game.getScore() & 0xFFFFFFFFL) | (long) maxExponent << 32 | moves << 40;
+    }
+
+    // Seed of game `index`: stream `index` split off a root generator seeded with the run seed,
+    // so neighbouring games get unrelated seeds and each worker's engines share no state
+    static long gameSeed(long seed, long index) {
+        SpawnRandom root = new SpawnRandom.SplitMix();
+        root.seed(seed);
+        return root.split(index).nextLong();
+    }
+
+    // Mergeable per-thread aggregate of game results
+    static class Stats {
+        long games, moves, totalScore;
+        int minScore = Integer.MAX_VALUE, maxScore;
+        final long[] maxTileCounts = new long[16];   // indexed by log2 of the max tile
+        final long[] scoreBuckets = new long[32];    // indexed by bit length of the score
+
+        void add(long result) {
+            int score = (int) result;
+            int maxExponent = (int) ((result >>> 32) & 0xFF);
+            games++;
+            moves += result >>> 40;
+            totalScore += score;
+            minScore = Math.min(minScore, score);
+            maxScore = Math.max(maxScore, score);
+            maxTileCounts[maxExponent]++;
+            scoreBuckets[32 - Integer.numberOfLeadingZeros(score)]++;
+        }
+
+        void merge(Stats other) {
+            games += other.games;
+            moves += other.moves;
+            totalScore += other.totalScore;
+            minScore = Math.min(minScore, other.minScore);
+            maxScore = Math.max(maxScore, other.maxScore);
+            for(int i = 0; i < maxTileCounts.length; i++) maxTileCounts[i] += other.maxTileCounts[i];
+            for(int i = 0; i < scoreBuckets.length; i++) scoreBuckets[i] += other.scoreBuckets[i];
+        }
+
+        void print(java.io.PrintStream out) {
+            if(games == 0) return;
+            out.printf("Score: min %d, mean %.1f, max %d%n", minScore, (double) totalScore / games, maxScore);
+            out.println("Score distribution:");
+            for(int i = 0; i < scoreBuckets.length; i++) {
+                if(scoreBuckets[i] == 0) continue;
+                long lo = i == 0 ? 0 : 1L << (i - 1), hi = (1L << i) - 1;
+                out.printf("  %7d - %-7d %6.2f%%%n", lo, hi, 100.0 * scoreBuckets[i] / games);
+            }
+            out.println("Max tile distribution:");
+            for(int i = 0; i < maxTileCounts.length; i++) {
+                if(maxTileCounts[i] == 0) continue;
+                out.printf("  %7d %6.2f%%%n", i == 0 ? 0 : 1 << i, 100.0 * maxTileCounts[i] / games);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package game2048;
+
+// Bitboard representation of the 4x4 board.
+// The whole board is packed into one long: cell (row, col) lives in the nibble at
+// bit (row * 16 + col * 4) and holds log2 of the tile value (0 = empty, 1 = 2, 2 = 4, ...).
+// Moves are table lookups on 16-bit rows/columns; the tables are built once by running
+// the original per-cell slide loop, so results match the old int[][] code exactly.
+final class BitBoard {
+    static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
+    // Layout of the int returned by moveInfo(): score delta in the low bits, flags above it
+    static final int SCORE_MASK = 0x00FFFFFF;
+    static final int MOVED = 1 << 24;
+    static final int WIN = 1 << 25;   // a merge produced a 2048 tile
+
+    static final int WIN_EXPONENT = 11;   // 2^11 = 2048
+    static final int MAX_EXPONENT = 15;   // largest value a nibble can hold
+
+    private static final long ROW_MASK = 0xFFFFL;
+    private static final long COL_MASK = 0x000F000F000F000FL;
+
+    private static final short[] ROW_LEFT = new short[65536];
+    private static final short[] ROW_RIGHT = new short[65536];
+    private static final long[] COL_UP = new long[65536];
+    private static final long[] COL_DOWN = new long[65536];
+    private static final int[] INFO_LEFT = new int[65536];
+    private static final int[] INFO_RIGHT = new int[65536];
+    // Per 16-bit line: bit 0 if sliding it towards its start changes it, bit 1 towards its end
+    private static final byte[] LINE_LEGAL = new byte[65536];
+
+    static {
+        int[] cells = new int[4];
+        for(int row = 0; row < 65536; row++) {
+            unpackLine(row, cells);
+            int info = slideTowardsStart(cells);
+            int left = packLine(cells);
+            ROW_LEFT[row] = (short) left;
+            INFO_LEFT[row] = info;
+            COL_UP[row] = unpackColumn(left);
+
+            int reversed = reverseLine(row);
+            unpackLine(reversed, cells);
+            info = slideTowardsStart(cells);
+            int right = reverseLine(packLine(cells));
+            ROW_RIGHT[row] = (short) right;
+            INFO_RIGHT[row] = info;
+            COL_DOWN[row] = unpackColumn(right);
+            LINE_LEGAL[row] = (byte) ((INFO_LEFT[row] & MOVED) >>> 24 | (INFO_RIGHT[row] & MOVED) >>> 23);
+        }
+    }
+
+    private BitBoard() {}
+
+    // Same algorithm as the old GameWindow.moveLeft on a single row of exponents.
+    // Note: merged tiles are not locked, so [2,2,4,-] slides to [8,-,-,-] exactly as before.
+    private static int slideTowardsStart(int[] c) {
+        int score = 0;
+        boolean moved = false, win = false;
+        for(int i = 1; i < 4; i++) {
+            if(c[i] != 0) {
+                int k = i;
+                while(k > 0 && c[k-1] == 0) {
+                    c[k-1] = c[k];
+                    c[k] = 0;
+                    k--;
+                    moved = true;
+                }
+                if(k > 0 && c[k-1] == c[k] && c[k] < MAX_EXPONENT) {
+                    c[k-1]++;
+                    score += 1 << c[k-1];
+                    c[k] = 0;
+                    moved = true;
+                    if(c[k-1] == WIN_EXPONENT) win = true;
+                }
+            }
+        }
+        return score | (moved ? MOVED : 0) | (win ? WIN : 0);
+    }
+
+    private static void unpackLine(int line, int[] cells) {
+        for(int i = 0; i < 4; i++) cells[i] = (line >>> (4 * i)) & 0xF;
+    }
+
+    private static int packLine(int[] cells) {
+        return cells[0] | cells[1] << 4 | cells[2] << 8 | cells[3] << 12;
+    }
+
+    private static int reverseLine(int line) {
+        return (line >>> 12) & 0x000F | (line >>> 4) & 0x00F0 | (line << 4) & 0x0F00 | (line << 12) & 0xF000;
+    }
+
+    // Spreads a 16-bit line into column 0 of a board (one nibble per row)
+    private static long unpackColumn(int line) {
+        long l = line & 0xFFFFL;
+        return (l & 0xF) | (l & 0xF0) << 12 | (l & 0xF00) << 24 | (l & 0xF000) << 36;
+    }
+
+    static int columnKey(long board, int col) {
+        long c = (board >>> (4 * col)) & COL_MASK;
+        return (int) ((c | c >>> 12 | c >>> 24 | c >>> 36) & ROW_MASK);
+    }
+
+    static int rowKey(long board, int row) {
+        return (int) ((board >>> (16 * row)) & ROW_MASK);
+    }
+
+    // Board after sliding in the given direction (unchanged if the move is illegal)
+    static long move(long board, int dir) {
+        long result = 0;
+        switch(dir) {
+            case UP:
+                for(int c = 0; c < 4; c++) result |= COL_UP[columnKey(board, c)] << (4 * c);
+                break;
+            case DOWN:
+                for(int c = 0; c < 4; c++) result |= COL_DOWN[columnKey(board, c)] << (4 * c);
+                break;
+            case LEFT:
+                for(int r = 0; r < 4; r++) result |= (ROW_LEFT[rowKey(board, r)] & ROW_MASK) << (16 * r);
+                break;
+            case RIGHT:
+                for(int r = 0; r < 4; r++) result |= (ROW_RIGHT[rowKey(board, r)] & ROW_MASK) << (16 * r);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown direction: " + dir);
+        }
+        return result;
+    }
+
+    // Score gained plus MOVED/WIN flags for sliding in the given direction
+    static int moveInfo(long board, int dir) {
+        int[] table;
+        boolean columns;
+        switch(dir) {
+            case UP: table = INFO_LEFT; columns = true; break;
+            case DOWN: table = INFO_RIGHT; columns = true; break;
+            case LEFT: table = INFO_LEFT; columns = false; break;
+            case RIGHT: table = INFO_RIGHT; columns = false; break;
+            default: throw new IllegalArgumentException("Unknown direction: " + dir);
+        }
+        int score = 0, flags = 0;
+        for(int i = 0; i < 4; i++) {
+            int info = table[columns ? columnKey(board, i) : rowKey(board, i)];
+            score += info & SCORE_MASK;
+            flags |= info & ~SCORE_MASK;
+        }
+        return score | flags;
+    }
+
+    static boolean canMove(long board, int dir) {
+        return (legalMoves(board) & 1 << dir) != 0;
+    }
+
+    // Bit `dir` set for every direction that changes the board: eight table lookups
+    static int legalMoves(long board) {
+        int vertical = 0, horizontal = 0;
+        for(int i = 0; i < 4; i++) {
+            vertical |= LINE_LEGAL[columnKey(board, i)];
+            horizontal |= LINE_LEGAL[rowKey(board, i)];
+        }
+        return vertical << UP | horizontal << LEFT;
+    }
+
+    static boolean isGameOver(long board) {
+        return isFull(board) && legalMoves(board) == 0;
+    }
+
+    // One bit per non-empty cell, at the lowest bit of its nibble
+    static long occupiedMask(long board) {
+        long x = board | (board >>> 1);
+        x |= x >>> 2;
+        return x & 0x1111111111111111L;
+    }
+
+    static int countEmpty(long board) {
+        return 16 - Long.bitCount(occupiedMask(board));
+    }
+
+    static boolean isFull(long board) {
+        return occupiedMask(board) == 0x1111111111111111L;
+    }
+
+    static int exponent(long board, int row, int col) {
+        return (int) ((board >>> (16 * row + 4 * col)) & 0xF);
+    }
+
+    static int tile(long board, int row, int col) {
+        int e = exponent(board, row, col);
+        return e == 0 ? 0 : 1 << e;
+    }
+
+    static long withExponent(long board, int row, int col, int exponent) {
+        int shift = 16 * row + 4 * col;
+        return (board & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    static int maxTile(long board) {
+        int max = 0;
+        for(int i = 0; i < 16; i++) max = Math.max(max, (int) ((board >>> (4 * i)) & 0xF));
+        return max == 0 ? 0 : 1 << max;
+    }
+
+    static long fromGrid(int[][] grid) {
+        long board = 0;
+        for(int i = 0; i < 4; i++) {
+            for(int j = 0; j < 4; j++) {
+                int val = grid[i][j];
+                board = withExponent(board, i, j, val == 0 ? 0 : Integer.numberOfTrailingZeros(val));
+            }
+        }
+        return board;
+    }
+
+    static int[][] toGrid(long board) {
+        int[][] grid = new int[4][4];
+        for(int i = 0; i < 4; i++) for(int j = 0; j < 4; j++) grid[i][j] = tile(board, i, j);
+        return grid;
+    }
+}
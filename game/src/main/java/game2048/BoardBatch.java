@@ -0,0 +1,118 @@
+package game2048;
+
+// Many 4x4 games stepped together: one call applies a direction to every board, another
+// spawns on every board that moved, a third marks the boards that are over. State is kept
+// struct-of-arrays, one primitive array per field indexed by lane, so a kernel can load a run
+// of lanes with one vector load:
+//   boards   packed BitBoard positions
+//   scores   running scores
+//   states   SplitMix spawn generator state of each game
+//   flags    MOVED (the last move() changed the board), WON (a 2048 has been made), OVER
+// The rules are GameEngine's with the default SplitMix generator: lane i after reset(seed) is
+// the i-th game a GameEngine(seed) would play, and stays identical to it move for move.
+// This class is the scalar path, one lane at a time on the BitBoard tables. create() returns
+// VectorBoardBatch instead when the JVM was started with --add-modules jdk.incubator.vector
+// (and -Dbatch.scalar is not set); it gives the same results.
+class BoardBatch {
+    static final long MOVED = 1, WON = 2, OVER = 4;
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    static final long NIBBLE_MARKERS = 0x1111111111111111L;
+
+    final int lanes, fourPercent;
+    final long[] boards, scores, states, flags;
+
+    BoardBatch(int lanes, int fourPercent) {
+        if(fourPercent < 0 || fourPercent > 100) throw new IllegalArgumentException("Bad 4-spawn percentage: " + fourPercent);
+        this.lanes = lanes;
+        this.fourPercent = fourPercent;
+        boards = new long[lanes];
+        scores = new long[lanes];
+        states = new long[lanes];
+        flags = new long[lanes];
+    }
+
+    static BoardBatch create(int lanes, int fourPercent) {
+        return vectorAvailable() ? new VectorBoardBatch(lanes, fourPercent) : new BoardBatch(lanes, fourPercent);
+    }
+
+    // The Vector API is an incubator module: only touch VectorBoardBatch when it is resolved
+    static boolean vectorAvailable() {
+        return !Boolean.getBoolean("batch.scalar") && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    // Lane i starts the i-th game in the seed sequence of a GameEngine(seed)
+    void reset(long seed) {
+        long next = seed;
+        for(int i = 0; i < lanes; i++) {
+            states[i] = next;
+            next = SpawnRandom.mix(next + GOLDEN_GAMMA);
+            boards[i] = 0;
+            scores[i] = 0;
+            flags[i] = 0;
+            spawnLane(i);
+            spawnLane(i);
+        }
+    }
+
+    // Slides every board in one of the BitBoard directions; returns how many moved
+    int move(int dir) {
+        int moved = 0;
+        for(int i = 0; i < lanes; i++) {
+            if(moveLane(i, dir)) moved++;
+        }
+        return moved;
+    }
+
+    // Drops a tile on every board the last move() changed; returns how many
+    int spawn() {
+        int spawned = 0;
+        for(int i = 0; i < lanes; i++) {
+            if((flags[i] & MOVED) != 0) {
+                spawnLane(i);
+                spawned++;
+            }
+        }
+        return spawned;
+    }
+
+    // Sets OVER on every board with no legal move; returns how many boards are over
+    int gameOver() {
+        int over = 0;
+        for(int i = 0; i < lanes; i++) {
+            if(gameOverLane(i)) over++;
+        }
+        return over;
+    }
+
+    final boolean moveLane(int i, int dir) {
+        long board = boards[i];
+        int info = BitBoard.moveInfo(board, dir);
+        long f = flags[i] & ~MOVED;
+        if((info & BitBoard.MOVED) != 0) {
+            boards[i] = BitBoard.move(board, dir);
+            scores[i] += info & BitBoard.SCORE_MASK;
+            f |= MOVED;
+            if((info & BitBoard.WIN) != 0) f |= WON;
+        }
+        flags[i] = f;
+        return (f & MOVED) != 0;
+    }
+
+    // GameEngine.addNewTile on lane i: one draw for the cell, one for the value
+    final void spawnLane(int i) {
+        long empty = ~BitBoard.occupiedMask(boards[i]) & NIBBLE_MARKERS;
+        if(empty == 0) return;
+        long state = states[i] + GOLDEN_GAMMA;
+        int k = (int) (((SpawnRandom.mix(state) >>> 32) * Long.bitCount(empty)) >>> 32);
+        state += GOLDEN_GAMMA;
+        int exponent = ((SpawnRandom.mix(state) >>> 32) * 100 >>> 32) < fourPercent ? 2 : 1;
+        states[i] = state;
+        boards[i] |= (long) exponent << GameEngine.selectBit(empty, k);
+    }
+
+    final boolean gameOverLane(int i) {
+        if(!BitBoard.isGameOver(boards[i])) return false;
+        flags[i] |= OVER;
+        return true;
+    }
+}
@@ -0,0 +1,342 @@
+package game2048;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import javax.swing.*;
+
+// Draws the whole board (any size from 3x3 to 8x8) on one component instead of a JLabel grid.
+// The static board lives in a VolatileImage layer that is only redrawn cell by cell as cells
+// change; tiles are blitted from sprites pre-rendered once per (value, tile size). Moves
+// animate as a slide followed by a merge/spawn pop, driven by a Swing timer that only runs
+// while an animation is in progress.
+class BoardCanvas extends JComponent {
+    private static final Color BACKGROUND = new Color(0x238BD3);
+    private static final int SLIDE_MS = 90, POP_MS = 90;
+    private static final int FRAME_DELAY_MS = 8;
+    private static final int GAP = 15, BORDER = 5;
+    private static final Font STATS_FONT = new Font("Arial", Font.BOLD, 16);
+
+    private final boolean showFrameStats;
+    private final TileSprites sprites = new TileSprites();
+    private final FrameStats frameStats = new FrameStats(120);
+    private final Timer animationTimer;
+
+    private final int size, cellCount;
+    private final long allCells;
+
+    private VolatileImage layer;
+    private final byte[] shown;       // board drawn on the layer, row-major exponents
+    private long dirtyCells;          // one bit per cell (row * size + col) that the layer must redraw
+    private boolean backgroundDirty;
+
+    // Current animation: tiles of `from` slide to `slideTo` cells, then merged/spawned cells pop
+    private final byte[] animFrom, slid;
+    private final int[] slideTo;
+    private long popCells;
+    private long animStart = -1;
+
+    // Cell geometry, recomputed on resize
+    private int originX, originY, tile;
+
+    BoardCanvas(int size, boolean showFrameStats) {
+        this.size = size;
+        this.cellCount = size * size;
+        this.allCells = cellCount == 64 ? -1L : (1L << cellCount) - 1;
+        this.showFrameStats = showFrameStats;
+        shown = new byte[cellCount];
+        animFrom = new byte[cellCount];
+        slid = new byte[cellCount];
+        slideTo = new int[cellCount];
+        setOpaque(true);
+        animationTimer = new Timer(FRAME_DELAY_MS, e -> repaint(boardBounds()));
+        animationTimer.setCoalesce(true);
+    }
+
+    // Shows a board without animation, repainting only the cells that differ
+    void setBoard(byte[] board) {
+        finishAnimation();
+        long changed = changedCells(shown, board);
+        System.arraycopy(board, 0, shown, 0, cellCount);
+        dirtyCells |= changed;
+        for(int cell = 0; cell < cellCount; cell++) {
+            if((changed >>> cell & 1) != 0) repaint(cellBounds(cell / size, cell % size));
+        }
+    }
+
+    // Animates `before` sliding in `dir`, landing on `after` (which includes the spawned tile)
+    void animateMove(byte[] before, int dir, byte[] after) {
+        finishAnimation();
+        computeSlide(before, size, dir, slideTo);
+        System.arraycopy(before, 0, slid, 0, cellCount);
+        ByteBoard.move(slid, size, dir);
+        popCells = changedCells(slid, after) | mergeCells(before, slideTo);   // the spawned tile and merges
+        System.arraycopy(before, 0, animFrom, 0, cellCount);
+        dirtyCells |= changedCells(shown, after);
+        System.arraycopy(after, 0, shown, 0, cellCount);
+        animStart = System.nanoTime();
+        animationTimer.start();
+        repaint(boardBounds());
+    }
+
+    FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    private void finishAnimation() {
+        if(animStart < 0) return;
+        animStart = -1;
+        animationTimer.stop();
+        repaint(boardBounds());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long frameStart = System.nanoTime();
+        layoutCells();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if(gc == null || tile <= 0) return;
+
+        long elapsedMs = animStart < 0 ? Long.MAX_VALUE : (frameStart - animStart) / 1_000_000;
+        if(elapsedMs >= SLIDE_MS + POP_MS) finishAnimation();
+
+        do {
+            int status = layer == null || layer.getWidth() != getWidth() || layer.getHeight() != getHeight()
+                    ? VolatileImage.IMAGE_INCOMPATIBLE : layer.validate(gc);
+            if(status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if(layer != null) layer.flush();
+                layer = gc.createCompatibleVolatileImage(getWidth(), getHeight());
+            }
+            if(status != VolatileImage.IMAGE_OK) invalidateLayer();
+            redrawLayer(gc);
+            g.drawImage(layer, 0, 0, null);
+        } while(layer.contentsLost());
+
+        if(animStart >= 0) paintAnimation(g, gc, elapsedMs);
+
+        frameStats.record(System.nanoTime() - frameStart, frameStart);
+        if(showFrameStats) {
+            g.setColor(Color.WHITE);
+            g.setFont(STATS_FONT);
+            g.drawString(frameStats.summary(), 10, 20);
+        }
+    }
+
+    private void redrawLayer(GraphicsConfiguration gc) {
+        if(dirtyCells == 0 && !backgroundDirty) return;
+        Graphics2D lg = layer.createGraphics();
+        try {
+            if(backgroundDirty) {
+                lg.setColor(BACKGROUND);
+                lg.fillRect(0, 0, getWidth(), getHeight());
+            }
+            for(int cell = 0; cell < cellCount; cell++) {
+                if((dirtyCells >>> cell & 1) == 0) continue;
+                Rectangle r = cellBounds(cell / size, cell % size);
+                lg.drawImage(sprites.get(gc, shown[cell], tile), r.x, r.y, null);
+            }
+        } finally {
+            lg.dispose();
+        }
+        dirtyCells = 0;
+        backgroundDirty = false;
+    }
+
+    private void invalidateLayer() {
+        dirtyCells = allCells;
+        backgroundDirty = true;
+    }
+
+    // Slide phase: empty cells with the old tiles moving; pop phase: final board with scaled tiles
+    private void paintAnimation(Graphics g, GraphicsConfiguration gc, long elapsedMs) {
+        Image empty = sprites.get(gc, 0, tile);
+        if(elapsedMs < SLIDE_MS) {
+            for(int cell = 0; cell < cellCount; cell++) {
+                Rectangle r = cellBounds(cell / size, cell % size);
+                g.drawImage(empty, r.x, r.y, null);
+            }
+            double t = (double) elapsedMs / SLIDE_MS;
+            for(int cell = 0; cell < cellCount; cell++) {
+                int e = animFrom[cell];
+                if(e == 0) continue;
+                Rectangle from = cellBounds(cell / size, cell % size), to = cellBounds(slideTo[cell] / size, slideTo[cell] % size);
+                int x = (int) Math.round(from.x + (to.x - from.x) * t);
+                int y = (int) Math.round(from.y + (to.y - from.y) * t);
+                g.drawImage(sprites.get(gc, e, tile), x, y, null);
+            }
+        } else {
+            double t = (double) (elapsedMs - SLIDE_MS) / POP_MS;
+            double scale = t < 0.5 ? 0.6 + 1.4 * t : 1.3 - 0.6 * (t - 0.5);   // grows past full size, then settles
+            for(int cell = 0; cell < cellCount; cell++) {
+                if((popCells >>> cell & 1) == 0) continue;
+                Rectangle r = cellBounds(cell / size, cell % size);
+                g.drawImage(empty, r.x, r.y, null);
+                int scaled = (int) (tile * scale), offset = (tile - scaled) / 2;
+                g.drawImage(sprites.get(gc, shown[cell], tile), r.x + offset, r.y + offset, scaled, scaled, null);
+            }
+        }
+    }
+
+    private void layoutCells() {
+        int side = Math.min(getWidth(), getHeight());
+        int newTile = (side - (size + 1) * GAP) / size;
+        if(newTile != tile) invalidateLayer();
+        tile = newTile;
+        originX = (getWidth() - boardSide()) / 2 + GAP;
+        originY = (getHeight() - boardSide()) / 2 + GAP;
+    }
+
+    private int boardSide() {
+        return size * tile + (size + 1) * GAP;
+    }
+
+    private Rectangle cellBounds(int row, int col) {
+        return new Rectangle(originX + col * (tile + GAP), originY + row * (tile + GAP), tile, tile);
+    }
+
+    private Rectangle boardBounds() {
+        return new Rectangle(originX - GAP, originY - GAP, boardSide(), boardSide());
+    }
+
+    private long changedCells(byte[] a, byte[] b) {
+        long mask = 0;
+        for(int cell = 0; cell < cellCount; cell++) if(a[cell] != b[cell]) mask |= 1L << cell;
+        return mask;
+    }
+
+    // For each cell of `before`, the cell its tile ends up in after sliding in `dir`.
+    // Replays the same single-pass slide as ByteBoard, tracking where every original tile goes.
+    static void computeSlide(byte[] before, int size, int dir, int[] dest) {
+        for(int line = 0; line < size; line++) {
+            int start, step;
+            switch(dir) {
+                case BitBoard.UP: start = line; step = size; break;
+                case BitBoard.DOWN: start = (size - 1) * size + line; step = -size; break;
+                case BitBoard.LEFT: start = line * size; step = 1; break;
+                default: start = line * size + size - 1; step = -1; break;
+            }
+            int w = 0, top = 0;   // `top` is the exponent currently packed at w - 1
+            for(int r = 0; r < size; r++) {
+                int cell = start + r * step, e = before[cell];
+                dest[cell] = cell;
+                if(e == 0) continue;
+                if(w > 0 && top == e && e < ByteBoard.MAX_EXPONENT) {
+                    top = e + 1;
+                    dest[cell] = start + (w - 1) * step;
+                } else {
+                    top = e;
+                    dest[cell] = start + w * step;
+                    w++;
+                }
+            }
+        }
+    }
+
+    // Cells that more than one tile of `before` slides into, given the destinations from computeSlide.
+    // Empty cells map to themselves in `dest`, so only occupied source cells are counted.
+    static long mergeCells(byte[] before, int[] dest) {
+        long landed = 0, merged = 0;
+        for(int cell = 0; cell < before.length; cell++) {
+            if(before[cell] == 0) continue;
+            long bit = 1L << dest[cell];
+            if((landed & bit) != 0) merged |= bit;
+            landed |= bit;
+        }
+        return merged;
+    }
+
+    // Tile images keyed by exponent, rebuilt only when the tile size changes
+    private static class TileSprites {
+        private final Image[] images = new Image[ByteBoard.MAX_EXPONENT + 1];
+        private int size = -1;
+
+        Image get(GraphicsConfiguration gc, int exponent, int tileSize) {
+            if(tileSize != size) {
+                java.util.Arrays.fill(images, null);
+                size = tileSize;
+            }
+            Image img = images[exponent];
+            if(img == null) images[exponent] = img = render(gc, exponent, tileSize);
+            return img;
+        }
+
+        private static Image render(GraphicsConfiguration gc, int exponent, int size) {
+            BufferedImage img = gc.createCompatibleImage(size, size, Transparency.OPAQUE);
+            Graphics2D g = img.createGraphics();
+            g.setColor(Enhanced2048.GameWindow.getExponentColor(exponent));
+            g.fillRect(0, 0, size, size);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size, BORDER);
+            g.fillRect(0, size - BORDER, size, BORDER);
+            g.fillRect(0, 0, BORDER, size);
+            g.fillRect(size - BORDER, 0, BORDER, size);
+            if(exponent != 0) {
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                String text = ByteBoard.label(exponent);
+                int fontSize = 48;
+                Font font = new Font("Arial", Font.BOLD, fontSize);
+                while(fontSize > 8 && g.getFontMetrics(font).stringWidth(text) > size * 0.8) {
+                    font = new Font("Arial", Font.BOLD, --fontSize);
+                }
+                FontMetrics fm = g.getFontMetrics(font);
+                g.setFont(font);
+                g.setColor(exponent < 4 ? Color.DARK_GRAY : Color.WHITE);
+                g.drawString(text, (size - fm.stringWidth(text)) / 2, (size - fm.getHeight()) / 2 + fm.getAscent());
+            }
+            g.dispose();
+            return img;
+        }
+    }
+
+    // Rolling paint-time and frame-interval statistics over the last N frames
+    static class FrameStats {
+        private final long[] paintNanos, intervalNanos;
+        private int count, next;
+        private long lastFrame;
+
+        FrameStats(int frames) {
+            paintNanos = new long[frames];
+            intervalNanos = new long[frames];
+        }
+
+        void record(long paintTime, long frameStart) {
+            paintNanos[next] = paintTime;
+            intervalNanos[next] = lastFrame == 0 ? 0 : frameStart - lastFrame;
+            Metrics.PAINT.record(paintTime);
+            if(intervalNanos[next] > 0 && intervalNanos[next] < 100_000_000L) Metrics.FRAME_INTERVAL.record(intervalNanos[next]);
+            lastFrame = frameStart;
+            next = (next + 1) % paintNanos.length;
+            if(count < paintNanos.length) count++;
+        }
+
+        double averagePaintMillis() {
+            long sum = 0;
+            for(int i = 0; i < count; i++) sum += paintNanos[i];
+            return count == 0 ? 0 : sum / 1e6 / count;
+        }
+
+        double maxPaintMillis() {
+            long max = 0;
+            for(int i = 0; i < count; i++) max = Math.max(max, paintNanos[i]);
+            return max / 1e6;
+        }
+
+        double averageIntervalMillis() {
+            long sum = 0;
+            int n = 0;
+            for(int i = 0; i < count; i++) {
+                // Gaps over 100 ms are idle time between moves, not frames
+                if(intervalNanos[i] > 0 && intervalNanos[i] < 100_000_000L) {
+                    sum += intervalNanos[i];
+                    n++;
+                }
+            }
+            return n == 0 ? 0 : sum / 1e6 / n;
+        }
+
+        String summary() {
+            return String.format("paint %.2f ms avg / %.2f ms max, frame interval %.1f ms",
+                    averagePaintMillis(), maxPaintMillis(), averageIntervalMillis());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package game2048;
+
+// Symmetry-aware keys for 4x4 BitBoard positions. Rotated and mirrored boards play the same
+// game, so caches keyed by position (transposition tables, opening books, analytics) can store
+// all 8 of them under one key.
+// Symmetry s is applied as: bit 4 transposes, then bit 1 mirrors the columns, then bit 2 the
+// rows (the same numbering NTupleNetwork uses). canonical() is the smallest of the 8 images,
+// exact and collision-free. A BoardHash object instead keeps 64-bit Zobrist hashes of all 8
+// images and updates them from the cells a move or spawn changed; key() is the smallest, so
+// symmetric boards get the same key without transforming anything.
+// A direction chosen for the canonical image maps back with fromCanonical(dir, symmetry), where
+// symmetry is the one that produced the canonical image (canonicalSymmetry() or symmetry()).
+final class BoardHash {
+    static final int SYMMETRIES = 8;
+
+    // Zobrist keys, [(cell * 16 + exponent) * 8 + symmetry]: the key of the exponent landing on
+    // that cell's image under the symmetry. Fixed seed, so stored keys stay valid across runs.
+    private static final long[] KEYS = new long[16 * 16 * SYMMETRIES];
+    // Direction on the image for a direction on the original board, and back: [symmetry][dir]
+    private static final int[][] TO_CANONICAL = new int[SYMMETRIES][4], FROM_CANONICAL = new int[SYMMETRIES][4];
+
+    static {
+        long[] base = new long[16 * 16];
+        SpawnRandom rnd = new SpawnRandom.SplitMix();
+        rnd.seed(2048);
+        for(int i = 0; i < base.length; i++) base[i] = i % 16 == 0 ? 0 : rnd.nextLong();   // empty cells add nothing
+        for(int s = 0; s < SYMMETRIES; s++) {
+            for(int cell = 0; cell < 16; cell++) {
+                int image = imageCell(cell, s);
+                for(int e = 0; e < 16; e++) KEYS[(cell * 16 + e) * SYMMETRIES + s] = base[image * 16 + e];
+            }
+            for(int dir = 0; dir < 4; dir++) {
+                int d = dir;
+                if((s & 4) != 0) d ^= 2;                    // UP <-> LEFT, DOWN <-> RIGHT
+                if((s & 1) != 0 && d >= BitBoard.LEFT) d ^= 1;
+                if((s & 2) != 0 && d < BitBoard.LEFT) d ^= 1;
+                TO_CANONICAL[s][dir] = d;
+                FROM_CANONICAL[s][d] = dir;
+            }
+        }
+    }
+
+    private final long[] hashes = new long[SYMMETRIES];
+    private long board;
+
+    BoardHash(long board) {
+        reset(board);
+    }
+
+    // Recomputes every hash for a new position
+    void reset(long board) {
+        this.board = 0;
+        java.util.Arrays.fill(hashes, 0L);
+        update(board);
+    }
+
+    // Moves the hashes to `board`, touching only the cells that differ from the current one
+    void update(long board) {
+        long diff = this.board ^ board;
+        while(diff != 0) {
+            int shift = Long.numberOfTrailingZeros(diff) & ~3;
+            int cell = shift >>> 2;
+            int from = (cell * 16 + (int) ((this.board >>> shift) & 0xF)) * SYMMETRIES;
+            int to = (cell * 16 + (int) ((board >>> shift) & 0xF)) * SYMMETRIES;
+            for(int s = 0; s < SYMMETRIES; s++) hashes[s] ^= KEYS[from + s] ^ KEYS[to + s];
+            diff &= ~(0xFL << shift);
+        }
+        this.board = board;
+    }
+
+    // The same for every rotation and reflection of the position
+    long key() {
+        long key = hashes[0];
+        for(int s = 1; s < SYMMETRIES; s++) key = Math.min(key, hashes[s]);
+        return key;
+    }
+
+    // Symmetry whose image gave key()
+    int symmetry() {
+        int best = 0;
+        for(int s = 1; s < SYMMETRIES; s++) {
+            if(hashes[s] < hashes[best]) best = s;
+        }
+        return best;
+    }
+
+    long board() {
+        return board;
+    }
+
+    // Zobrist hash of the board itself (its identity image), computed from scratch
+    static long hash(long board) {
+        long h = 0;
+        for(int cell = 0; cell < 16; cell++) h ^= KEYS[(cell * 16 + (int) ((board >>> (4 * cell)) & 0xF)) * SYMMETRIES];
+        return h;
+    }
+
+    // Smallest of the 8 images
+    static long canonical(long board) {
+        long t = transpose(board);
+        long m = mirrorColumns(board), tm = mirrorColumns(t);
+        long min = Math.min(Math.min(board, m), Math.min(mirrorRows(board), mirrorRows(m)));
+        return Math.min(min, Math.min(Math.min(t, tm), Math.min(mirrorRows(t), mirrorRows(tm))));
+    }
+
+    // Symmetry s with transform(board, s) == canonical(board); the lowest one if several are
+    static int canonicalSymmetry(long board) {
+        int best = 0;
+        long min = board;
+        for(int s = 1; s < SYMMETRIES; s++) {
+            long image = transform(board, s);
+            if(image < min) {
+                min = image;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    static long transform(long board, int s) {
+        if((s & 4) != 0) board = transpose(board);
+        if((s & 1) != 0) board = mirrorColumns(board);
+        if((s & 2) != 0) board = mirrorRows(board);
+        return board;
+    }
+
+    // move(transform(b, s), toCanonical(d, s)) == transform(move(b, d), s)
+    static int toCanonical(int dir, int s) {
+        return TO_CANONICAL[s][dir];
+    }
+
+    static int fromCanonical(int dir, int s) {
+        return dir < 0 ? dir : FROM_CANONICAL[s][dir];
+    }
+
+    // Cell (row * 4 + col) that `cell` lands on under symmetry s
+    static int imageCell(int cell, int s) {
+        int r = cell / 4, c = cell % 4;
+        if((s & 4) != 0) {
+            int tmp = r;
+            r = c;
+            c = tmp;
+        }
+        if((s & 1) != 0) c = 3 - c;
+        if((s & 2) != 0) r = 3 - r;
+        return r * 4 + c;
+    }
+
+    private static long mirrorColumns(long b) {
+        return (b & 0x000F000F000F000FL) << 12 | (b & 0x00F000F000F000F0L) << 4
+                | (b >>> 4) & 0x00F000F000F000F0L | (b >>> 12) & 0x000F000F000F000FL;
+    }
+
+    private static long mirrorRows(long b) {
+        return b << 48 | (b & 0xFFFF0000L) << 16 | (b >>> 16) & 0xFFFF0000L | b >>> 48;
+    }
+
+    private static long transpose(long b) {
+        long a = b & 0xF0F00F0FF0F00F0FL | (b & 0x0000F0F00000F0F0L) << 12 | (b >>> 12) & 0x0000F0F00000F0F0L;
+        return a & 0xFF00FF0000FF00FFL | (a >>> 24) & 0x00000000FF00FF00L | (a & 0x00000000FF00FF00L) << 24;
+    }
+}
@@ -0,0 +1,112 @@
+package game2048;
+
+// Rules for N x N boards stored as a flat, row-major byte[] of log2 exponents (0 = empty).
+// Bytes keep an 8x8 board in one cache line and hold tiles up to 2^MAX_EXPONENT.
+// Each line is slid in a single pass: a write cursor trails the read cursor, and a tile
+// merges at most once with whatever sits just behind the cursor. This is the same result
+// as the original cell-by-cell loop (merged tiles are not locked, see BitBoard) at O(N) per line.
+final class ByteBoard {
+    static final int MAX_EXPONENT = 126;
+
+    // Layout of the long returned by move(): score delta in the low bits, flags above it
+    static final long SCORE_MASK = (1L << 60) - 1;
+    static final long MOVED = 1L << 61;
+    static final long WIN = 1L << 62;
+
+    private ByteBoard() {}
+
+    // Slides `cells` in place in one of the BitBoard directions; returns score | MOVED | WIN
+    static long move(byte[] cells, int size, int dir) {
+        long result = 0;
+        for(int line = 0; line < size; line++) {
+            int start, step;
+            switch(dir) {
+                case BitBoard.UP: start = line; step = size; break;
+                case BitBoard.DOWN: start = (size - 1) * size + line; step = -size; break;
+                case BitBoard.LEFT: start = line * size; step = 1; break;
+                case BitBoard.RIGHT: start = line * size + size - 1; step = -1; break;
+                default: throw new IllegalArgumentException("Unknown direction: " + dir);
+            }
+            result = add(result, slideLine(cells, start, step, size));
+        }
+        return result;
+    }
+
+    private static long slideLine(byte[] cells, int start, int step, int size) {
+        long score = 0, flags = 0;
+        int w = 0;   // cells [0, w) of the line are packed
+        for(int r = 0; r < size; r++) {
+            int read = start + r * step;
+            byte t = cells[read];
+            if(t == 0) continue;
+            cells[read] = 0;
+            int prev = start + (w - 1) * step;
+            if(w > 0 && cells[prev] == t && t < MAX_EXPONENT) {
+                cells[prev] = (byte) (t + 1);
+                score = add(score, t + 1 >= 60 ? SCORE_MASK : 1L << (t + 1));
+                if(t + 1 == BitBoard.WIN_EXPONENT) flags |= WIN;
+                flags |= MOVED;
+            } else {
+                cells[start + w * step] = t;
+                if(w != r) flags |= MOVED;
+                w++;
+            }
+        }
+        return score | flags;
+    }
+
+    // Adds two move results: scores saturate at SCORE_MASK, flags are or'ed
+    private static long add(long a, long b) {
+        long score = Math.min(SCORE_MASK, (a & SCORE_MASK) + (b & SCORE_MASK));
+        return score | ((a | b) & ~SCORE_MASK);
+    }
+
+    static int countEmpty(byte[] cells) {
+        int empty = 0;
+        for(byte c : cells) if(c == 0) empty++;
+        return empty;
+    }
+
+    // Bit i set for every empty cells[i] (boards of up to 64 cells)
+    static long emptyMask(byte[] cells) {
+        long mask = 0;
+        for(int i = 0; i < cells.length; i++) if(cells[i] == 0) mask |= 1L << i;
+        return mask;
+    }
+
+    static boolean isFull(byte[] cells) {
+        for(byte c : cells) if(c == 0) return false;
+        return true;
+    }
+
+    // Bit `dir` set for every BitBoard direction that changes the board, in one pass over the
+    // adjacent pairs: a pair allows a slide towards the second cell if the first is a tile and
+    // the second is empty or equal, and towards the first in the mirrored case
+    static int legalMoves(byte[] cells, int size) {
+        int legal = 0;
+        for(int row = 0; row < size && legal != 0xF; row++) {
+            for(int col = 0; col < size; col++) {
+                byte c = cells[row * size + col];
+                if(col < size - 1) legal |= pairMoves(c, cells[row * size + col + 1]) << BitBoard.LEFT;
+                if(row < size - 1) legal |= pairMoves(c, cells[(row + 1) * size + col]) << BitBoard.UP;
+            }
+        }
+        return legal;
+    }
+
+    // Bit 0: the pair (first, second) slides towards first; bit 1: towards second
+    private static int pairMoves(byte first, byte second) {
+        if(first == second) return first == 0 ? 0 : 3;
+        return (second != 0 && first == 0 ? 1 : 0) | (first != 0 && second == 0 ? 2 : 0);
+    }
+
+    static boolean isGameOver(byte[] cells, int size) {
+        return isFull(cells) && legalMoves(cells, size) == 0;
+    }
+
+    // Human-readable tile value; exact up to 2^62, "2^n" above that
+    static String label(int exponent) {
+        if(exponent == 0) return "";
+        return exponent <= 62 ? String.valueOf(1L << exponent) : "2^" + exponent;
+    }
+}
@@ -0,0 +1,1075 @@
+package game2048;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.prefs.Preferences;
+import javax.swing.*;
+
+public class Enhanced2048 {
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
+    public static void main(String[] args) {
+        Metrics.start();
+        if(RECORDER != null) Runtime.getRuntime().addShutdownHook(new Thread(RECORDER::close, "game-log-close"));
+        if(STATS != null) Runtime.getRuntime().addShutdownHook(new Thread(STATS::close, "stats-close"));
+        SwingUtilities.invokeLater(() -> {
+            SplashWindow splash = new SplashWindow();
+            Assets.preloadAll((done, total) -> SwingUtilities.invokeLater(() -> splash.progress(done, total)))
+                    .thenRun(() -> {
+                        for(String sound : Assets.SOUNDS) AUDIO.sound(sound);   // convert for the mixer off the EDT
+                    })
+                    .thenRun(() -> SwingUtilities.invokeLater(() -> {
+                        splash.dispose();
+                        new EntryWindow();
+                    }));
+        });
+    }
+
+    // Small undecorated progress window shown while Assets decodes images and sounds
+    static class SplashWindow extends JWindow {
+        private final JProgressBar bar = new JProgressBar();
+
+        public SplashWindow() {
+            JPanel panel = new JPanel(new BorderLayout(10, 10));
+            panel.setBackground(new Color(0x238BD3));
+            panel.setBorder(BorderFactory.createEmptyBorder(20, 30, 20, 30));
+            JLabel title = new JLabel("2048 Cubes.io", SwingConstants.CENTER);
+            title.setFont(new Font("Comic Sans MS", Font.BOLD, 36));
+            title.setForeground(Color.WHITE);
+            panel.add(title, BorderLayout.CENTER);
+            bar.setStringPainted(true);
+            bar.setString("Loading...");
+            panel.add(bar, BorderLayout.SOUTH);
+            setContentPane(panel);
+            pack();
+            setLocationRelativeTo(null);
+            setVisible(true);
+        }
+
+        void progress(int done, int total) {
+            bar.setMaximum(total);
+            bar.setValue(done);
+            bar.setString("Loading " + done + "/" + total);
+        }
+    }
+
+    // Entry Page with background image, music, best score, Start and Reset buttons
+    static class EntryWindow extends JFrame {
+        private int introMusic;
+        private JLabel bestScoreLabel;
+        private boolean firstFrameLogged;
+        // Node name predates the game2048 package; kept so existing best scores are still found
+        private Preferences prefs = Preferences.userRoot().node("Enhanced2048$EntryWindow");
+
+        public EntryWindow() {
+            setTitle("2048 Cubes.io - Entry");
+            setDefaultCloseOperation(EXIT_ON_CLOSE);
+            setUndecorated(true);
+            setExtendedState(JFrame.MAXIMIZED_BOTH);
+            setLayout(new BorderLayout());
+
+            // Background panel paints image, pre-scaled to the panel size by Assets
+            JPanel backgroundPanel = new JPanel() {
+                protected void paintComponent(Graphics g) {
+                    super.paintComponent(g);
+                    Image img = Assets.scaled("entry_image.png", getWidth(), getHeight());
+                    if(img != null) g.drawImage(img, 0, 0, this);
+                    if(!firstFrameLogged) {
+                        firstFrameLogged = true;
+                        long firstFrameMillis = (System.nanoTime() - LAUNCH_NANOS) / 1_000_000;
+                        Metrics.gauge("startup.firstFrameMs", () -> firstFrameMillis);
+                    }
+                }
+            };
+            backgroundPanel.setLayout(new GridBagLayout());
+
+            // Best score from the statistics store, which takes over the one older versions kept in preferences
+            if(STATS != null && prefs.get("bestScore", null) != null) {
+                STATS.importBest(prefs.getLong("bestScore", 0));
+                prefs.remove("bestScore");
+            }
+            bestScoreLabel = new JLabel("Best Score: " + bestScore());
+            bestScoreLabel.setFont(new Font("Arial Rounded MT Bold", Font.BOLD, 40));
+            bestScoreLabel.setForeground(Color.WHITE);
+
+            JButton startButton = new JButton("Start Game");
+            startButton.setFont(new Font("Comic Sans MS", Font.BOLD, 48));
+            startButton.setBackground(new Color(0x1abc9c));
+            startButton.setForeground(Color.WHITE);
+            startButton.setFocusPainted(false);
+            startButton.setPreferredSize(new Dimension(280, 80));
+
+            JButton resetBestButton = new JButton("Reset Best Score");
+            resetBestButton.setFont(new Font("Comic Sans MS", Font.BOLD, 30));
+            resetBestButton.setBackground(new Color(0xe74c3c));
+            resetBestButton.setForeground(Color.WHITE);
+            resetBestButton.setFocusPainted(false);
+            resetBestButton.setPreferredSize(new Dimension(280, 60));
+
+            JButton replayButton = new JButton("Watch Last Game");
+            replayButton.setFont(new Font("Comic Sans MS", Font.BOLD, 30));
+            replayButton.setBackground(new Color(0x2980b9));
+            replayButton.setForeground(Color.WHITE);
+            replayButton.setFocusPainted(false);
+            replayButton.setPreferredSize(new Dimension(280, 60));
+
+            // Only when there is an unfinished game from an earlier run
+            JButton resumeButton = null;
+            if(SAVED != null) {
+                resumeButton = new JButton("Resume " + SAVED.size + "x" + SAVED.size + (SAVED.hard ? " hard" : "") + " (" + SAVED.score() + ")");
+                resumeButton.setFont(new Font("Comic Sans MS", Font.BOLD, 30));
+                resumeButton.setBackground(new Color(0x27ae60));
+                resumeButton.setForeground(Color.WHITE);
+                resumeButton.setFocusPainted(false);
+                resumeButton.setPreferredSize(new Dimension(280, 60));
+            }
+
+            // Board size, remembered between launches
+            JComboBox<String> sizeChooser = new JComboBox<>();
+            for(int n = GameEngine.MIN_SIZE; n <= GameEngine.MAX_SIZE; n++) sizeChooser.addItem(n + " x " + n);
+            sizeChooser.setSelectedIndex(Math.max(0, Math.min(GameEngine.MAX_SIZE, prefs.getInt("boardSize", 4)) - GameEngine.MIN_SIZE));
+            sizeChooser.setFont(new Font("Comic Sans MS", Font.BOLD, 30));
+            sizeChooser.setPreferredSize(new Dimension(280, 60));
+
+            // Hard mode: the AdversarialSpawner picks every new tile (4x4 only), remembered between launches
+            JCheckBox hardMode = new JCheckBox("Hard mode", prefs.getBoolean("hardMode", false));
+            hardMode.setFont(new Font("Comic Sans MS", Font.BOLD, 30));
+            hardMode.setForeground(Color.WHITE);
+            hardMode.setOpaque(false);
+            hardMode.setFocusPainted(false);
+            hardMode.setEnabled(sizeChooser.getSelectedIndex() == 4 - GameEngine.MIN_SIZE);
+            sizeChooser.addActionListener(e -> hardMode.setEnabled(sizeChooser.getSelectedIndex() == 4 - GameEngine.MIN_SIZE));
+
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.insets = new Insets(20, 20, 20, 20);
+            gbc.gridx = 0; gbc.gridy = 0; backgroundPanel.add(bestScoreLabel, gbc);
+            gbc.gridy = 1; backgroundPanel.add(sizeChooser, gbc);
+            gbc.gridy = 2; backgroundPanel.add(hardMode, gbc);
+            gbc.gridy = 3; backgroundPanel.add(startButton, gbc);
+            if(resumeButton != null) {
+                gbc.gridy = 4; backgroundPanel.add(resumeButton, gbc);
+            }
+            gbc.gridy = 5; backgroundPanel.add(replayButton, gbc);
+            gbc.gridy = 6; backgroundPanel.add(resetBestButton, gbc);
+            JComponent statsPanel = statsPanel();
+            if(statsPanel != null) {
+                gbc.gridy = 7; backgroundPanel.add(statsPanel, gbc);
+            }
+
+            add(backgroundPanel, BorderLayout.CENTER);
+
+            introMusic = playMusic("into_music.wav", true);
+            if (introMusic < 0) System.out.println("Intro music failed to load.");
+
+            startButton.addActionListener(e -> {
+                stopSound(introMusic);
+                dispose();
+                int size = GameEngine.MIN_SIZE + sizeChooser.getSelectedIndex();
+                prefs.putInt("boardSize", size);
+                prefs.putBoolean("hardMode", hardMode.isSelected());
+                // A saved game that is not resumed now ends here; the new game's saves replace it
+                if(SAVED != null && SAVED.moves > 0 && STATS != null) STATS.recordGame(SAVED.abandoned());
+                new GameWindow(size, bestScoreLabel, null, size == 4 && hardMode.isSelected());
+            });
+
+            if(resumeButton != null) {
+                resumeButton.addActionListener(e -> {
+                    stopSound(introMusic);
+                    dispose();
+                    new GameWindow(SAVED.size, bestScoreLabel, SAVED, SAVED.hard);
+                });
+            }
+
+            replayButton.addActionListener(e -> {
+                GameRecording last = lastRecordedGame();
+                if(last == null) {
+                    JOptionPane.showMessageDialog(this, "No recorded games yet.", "Replay", JOptionPane.INFORMATION_MESSAGE);
+                } else if(last.version != GameRecording.VERSION) {
+                    JOptionPane.showMessageDialog(this, "The last game was recorded by an older version and cannot be replayed.",
+                            "Replay", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    new ReplayWindow(this, last);
+                }
+            });
+
+            resetBestButton.addActionListener(e -> {
+                if(STATS != null) STATS.resetBest();
+                bestScoreLabel.setText("Best Score: 0");
+            });
+
+            setVisible(true);
+        }
+
+        // "Your stats" from the last RecordingAnalytics run, if there has been one; the summary
+        // file is read as it is, the game logs are not touched
+        private static JComponent statsPanel() {
+            RecordingAnalytics.Summary summary = RecordingAnalytics.Summary.readOrNull(RecordingAnalytics.Summary.defaultFile());
+            if(summary == null || summary.games == 0) return null;
+            StringBuilder html = new StringBuilder("<html><b>Your stats</b>");
+            for(String line : summary.describe()) html.append("<br>").append(line);
+            html.append("<br><i>as of ").append(java.text.DateFormat.getDateTimeInstance(java.text.DateFormat.MEDIUM,
+                    java.text.DateFormat.SHORT).format(new java.util.Date(summary.analysedMillis))).append("</i></html>");
+            JLabel label = new JLabel(html.toString());
+            label.setFont(new Font("Arial Rounded MT Bold", Font.PLAIN, 18));
+            label.setForeground(Color.WHITE);
+            label.setOpaque(true);
+            label.setBackground(new Color(0x2c3e50));
+            label.setBorder(BorderFactory.createEmptyBorder(12, 16, 12, 16));
+            return label;
+        }
+    }
+
+    // Game Window with an N x N grid, scoring, sounds, and gameplay
+    static class GameWindow extends JFrame {
+        private final int size;
+        private final GameEngine engine;
+        private final JLabel[][] gridLabels;
+        private JLabel scoreLabel, bestScoreLabel;
+        private long bestScore;
+        private final UndoHistory history;
+        private final SavedGame.Writer saver;
+        private final AdversarialSpawner spawner;   // hard mode only
+        // Current game, for the statistics store (autoplay counts its moves under the engine lock)
+        private long gameStartMillis;
+        private int gameMoves, gameUndos;
+        private boolean gameActive;
+        private int moveSound, bgMusic;
+        private JLabel externalBestScoreLabel; // To update on Entry page
+
+        // AI hint / autoplay: Expectimax, or MonteCarlo rollouts with -Dai.engine=montecarlo. Search depth
+        // and per-move budget can be tuned with -Dai.depth and -Dai.budgetMs. When there is a trained
+        // n-tuple network (see NTupleTrainer), Expectimax scores lines by it plus the points of each move
+        private static final String[] DIRECTION_NAMES = {"Up", "Down", "Left", "Right"};
+        private final MovePolicy ai = createAi();
+        private final boolean canvasMode = "canvas".equals(System.getProperty("render"));
+        private BoardCanvas boardCanvas;
+        private JLabel hintLabel;
+        private JToggleButton autoplayButton;
+        private volatile Thread autoplayThread;
+        private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+        // Key presses are queued and applied on the game-logic thread; the EDT only paints the
+        // latest published snapshot. Queue length can be tuned with -Dinput.queue
+        private final InputPipeline input = new InputPipeline(Integer.getInteger("input.queue", 64), this::applyMove);
+        private final AtomicReference<Snapshot> latest = new AtomicReference<>();
+        private long snapshotVersion, renderedVersion, lastAppliedInput;
+        private final MetricsOverlay metricsOverlay = new MetricsOverlay();
+        private final EndOverlay endOverlay;
+
+        // Starts a new game, or carries on with `saved` if it isn't null. In hard mode (4x4) every
+        // tile after the first two is placed by an AdversarialSpawner searching for up to
+        // -Dhard.budgetMs per spawn; F3 shows the depth it reaches and its nodes/s.
+        public GameWindow(int size, JLabel bestScoreLabel, SavedGame saved, boolean hard) {
+            this.size = size;
+            // -Dgame.seed makes a session's games reproducible
+            long seed = Long.getLong("game.seed", System.nanoTime());
+            this.engine = saved == null ? new GameEngine(size, seed) : saved.engine(seed);
+            this.gridLabels = new JLabel[size][size];
+            // Undo/redo depth can be tuned with -Dundo.depth
+            this.history = new UndoHistory(Integer.getInteger("undo.depth", 1024), engine.stateWords());
+            // The game in progress is saved after every change (-Dsave.file); the hook writes the last one on exit
+            this.spawner = hard && size == 4 ? new AdversarialSpawner(Integer.getInteger("hard.budgetMs", 50)) : null;
+            this.saver = new SavedGame.Writer(SavedGame.defaultFile(), engine, history, spawner != null);
+            Runtime.getRuntime().addShutdownHook(new Thread(saver::close, "game-save-close"));
+            this.externalBestScoreLabel = bestScoreLabel;
+            this.bestScore = bestScore();
+
+            setTitle(spawner == null ? "2048 Cubes.io - Game" : "2048 Cubes.io - Hard Mode");
+            setUndecorated(true);
+            setDefaultCloseOperation(EXIT_ON_CLOSE);
+            GraphicsDevice gd = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+            gd.setFullScreenWindow(this);
+
+            setLayout(new BorderLayout(8, 8));
+            getContentPane().setBackground(new Color(0x238BD3));
+
+            // Top panel: score and best score
+            JPanel topPanel = new JPanel(new GridLayout(1, 3, 20, 10));
+            topPanel.setBackground(getContentPane().getBackground());
+            scoreLabel = styledLabel("Score: 0", 32, Color.WHITE, Color.DARK_GRAY);
+            bestScoreLabel = styledLabel("Best: " + bestScore, 32, Color.WHITE, Color.DARK_GRAY);
+            topPanel.add(scoreLabel);
+            topPanel.add(bestScoreLabel);
+            hintLabel = styledLabel("Hint: -", 32, Color.WHITE, Color.DARK_GRAY);
+            topPanel.add(hintLabel);
+            add(topPanel, BorderLayout.NORTH);
+
+            // Center: grid panel, or a single BoardCanvas with -Drender=canvas
+            if(canvasMode) {
+                boardCanvas = new BoardCanvas(size, Boolean.getBoolean("render.stats"));
+                add(boardCanvas, BorderLayout.CENTER);
+            } else {
+                JPanel gridPanel = new JPanel(new GridLayout(size, size, 15, 15));
+                gridPanel.setBackground(new Color(0x238BD3));
+                for(int i=0; i<size; i++) {
+                    for(int j=0; j<size; j++) {
+                        gridLabels[i][j] = styledLabel("", 48 * 4 / size, Color.BLACK, new Color(0xcdc1b4));
+                        gridLabels[i][j].setOpaque(true);
+                        gridLabels[i][j].setHorizontalAlignment(SwingConstants.CENTER);
+                        gridLabels[i][j].setBorder(BorderFactory.createLineBorder(Color.WHITE, 5));
+                        gridPanel.add(gridLabels[i][j]);
+                    }
+                }
+                add(gridPanel, BorderLayout.CENTER);
+            }
+
+            // Bottom panel with Undo, Redo, Restart, Exit
+            JPanel bottomPanel = new JPanel();
+            bottomPanel.setBackground(getContentPane().getBackground());
+            JButton undoButton = styledButton("Undo", 28);
+            JButton redoButton = styledButton("Redo", 28);
+            JButton restartButton = styledButton("Restart", 28);
+            JButton exitButton = styledButton("Exit", 28);
+            JButton hintButton = styledButton("Hint", 28);
+            autoplayButton = new JToggleButton("Autoplay");
+            autoplayButton.setFont(new Font("Comic Sans MS", Font.BOLD, 28));
+            autoplayButton.setFocusable(false);
+            autoplayButton.setBackground(new Color(0xC0392B));
+            autoplayButton.setForeground(Color.WHITE);
+            bottomPanel.add(undoButton);
+            bottomPanel.add(redoButton);
+            bottomPanel.add(restartButton);
+            bottomPanel.add(hintButton);
+            bottomPanel.add(autoplayButton);
+            bottomPanel.add(exitButton);
+            add(bottomPanel, BorderLayout.SOUTH);
+            // The expectimax search is built on the 4x4 bitboard
+            hintButton.setEnabled(size == 4 || (size == Tablebase.SIZE && TABLEBASE != null));
+            autoplayButton.setEnabled(size == 4);
+
+            undoButton.addActionListener(e -> {
+                stopAutoplay();
+                undo();
+            });
+            redoButton.addActionListener(e -> {
+                stopAutoplay();
+                redo();
+            });
+            hintButton.addActionListener(e -> showHint());
+            autoplayButton.addActionListener(e -> {
+                if(autoplayButton.isSelected()) startAutoplay();
+                else stopAutoplay();
+            });
+            restartButton.addActionListener(e -> {
+                stopAutoplay();
+                int res = JOptionPane.showConfirmDialog(this, "Restart game?", "Confirm Restart", JOptionPane.YES_NO_OPTION);
+                if(res == JOptionPane.YES_OPTION) initGame();
+            });
+            exitButton.addActionListener(e -> {
+                int res = JOptionPane.showConfirmDialog(this, "Exit game?", "Confirm Exit", JOptionPane.YES_NO_OPTION);
+                if(res == JOptionPane.YES_OPTION){
+                    // No finishGame(): the game stays saved, and counts once it ends or is abandoned
+                    stopSound(bgMusic);
+                    System.exit(0);
+                }
+            });
+
+            // Win / game-over screen above the board; F3 toggles the performance overlay above that
+            endOverlay = new EndOverlay(this, externalBestScoreLabel);
+            getLayeredPane().add(endOverlay, JLayeredPane.MODAL_LAYER);
+            setGlassPane(metricsOverlay);
+            if(spawner != null) {
+                Metrics.gauge("hard.depth", spawner::lastDepth);
+                Metrics.gauge("hard.nodesPerSec", spawner::lastNodesPerSecond);
+            }
+            Metrics.gauge("undo.bytes", history::memoryBytes);
+            Metrics.gauge("undo.usedBytes", () -> {
+                synchronized(engine) {
+                    return history.usedBytes();
+                }
+            });
+
+            addKeyListener(new KeyAdapter() {
+                public void keyPressed(KeyEvent e) {
+                    if(e.getKeyCode() == KeyEvent.VK_F3) {
+                        metricsOverlay.setVisible(!metricsOverlay.isVisible());
+                        return;
+                    }
+                    if(engine.isWinReached() || autoplayThread != null || endOverlay.isVisible()) return;
+                    int dir;
+                    switch(e.getKeyCode()) {
+                        case KeyEvent.VK_UP: dir = BitBoard.UP; break;
+                        case KeyEvent.VK_DOWN: dir = BitBoard.DOWN; break;
+                        case KeyEvent.VK_LEFT: dir = BitBoard.LEFT; break;
+                        case KeyEvent.VK_RIGHT: dir = BitBoard.RIGHT; break;
+                        default: return;
+                    }
+                    input.submit(dir);
+                }
+            });
+
+            setFocusable(true);
+
+            moveSound = loadSound("move_sound.wav");
+            bgMusic = playMusic("background_music.wav", true);
+
+            if(saved == null) initGame();
+            else resumeGame(saved);
+            setVisible(true);
+        }
+
+        private JLabel styledLabel(String text, int size, Color fg, Color bg) {
+            JLabel label = new JLabel(text, SwingConstants.CENTER);
+            label.setFont(new Font("Arial", Font.BOLD, size));
+            label.setOpaque(true);
+            label.setForeground(fg);
+            label.setBackground(bg);
+            return label;
+        }
+
+        private JButton styledButton(String text, int size) {
+            JButton button = new JButton(text);
+            button.setFont(new Font("Comic Sans MS", Font.BOLD, size));
+            button.setFocusable(false);
+            button.setBackground(new Color(0xC0392B));
+            button.setForeground(Color.WHITE);
+            return button;
+        }
+
+        private void initGame() {
+            input.clear();
+            finishGame();
+            synchronized(engine) {
+                engine.reset();
+                gameStartMillis = System.currentTimeMillis();
+                gameMoves = 0;
+                gameUndos = 0;
+                gameActive = true;
+                history.reset(engine);
+                if(RECORDER != null) RECORDER.begin(engine, spawner != null);
+                saveLocked();
+            }
+            updateGrid();
+        }
+
+        private void resumeGame(SavedGame saved) {
+            input.clear();
+            synchronized(engine) {
+                saved.restore(engine, history);
+                gameStartMillis = System.currentTimeMillis() - saved.playedMillis;
+                gameMoves = saved.moves;
+                gameUndos = saved.undos;
+                gameActive = true;
+                saveLocked();
+            }
+            updateGrid();
+        }
+
+        // The next tile: random, or in hard mode the spawner's pick (it searches on its own
+        // thread for at most the budget, while this one waits). Caller holds the engine lock.
+        private void spawnLocked() {
+            if(spawner == null) {
+                engine.addNewTile();
+                return;
+            }
+            int placement = spawner.spawn(engine.getBoard());
+            if(placement >= 0) engine.placeTile(placement >>> 4, placement & 15);
+        }
+
+        // Caller holds the engine lock
+        private void saveLocked() {
+            saver.changed(gameMoves, gameUndos, gameStartMillis);
+        }
+
+        // Runs on the game-logic thread for each queued key press
+        private boolean applyMove(int dir, long seq) {
+            synchronized(engine) {
+                // Directions that would not change the board are turned away before any copying
+                if(engine.isWinReached() || autoplayThread != null || !engine.canMove(dir)) return false;
+                byte[] before = cellsLocked();
+                long t0 = System.nanoTime();
+                boolean moved = engine.move(dir);
+                long t1 = System.nanoTime();
+                Metrics.MOVE.record(t1 - t0);
+                if(!moved) return false;
+                gameMoves++;
+                spawnLocked();
+                Metrics.SPAWN.record(System.nanoTime() - t1);
+                history.record(engine);
+                if(RECORDER != null) RECORDER.move(dir, engine);
+                saveLocked();
+                lastAppliedInput = seq;
+                publish(before, dir);
+            }
+            playSound(moveSound);
+            requestRefresh();
+            return true;
+        }
+
+        // Immutable view of the engine handed from the logic/autoplay threads to the EDT
+        private static final class Snapshot {
+            final long version, score, inputSeq;
+            final byte[] cells, before;   // before = the board this move started from, or null
+            final int dir, legalMoves;    // legalMoves: GameEngine.legalMoves() of `cells`
+
+            Snapshot(long version, long score, long inputSeq, byte[] cells, byte[] before, int dir, int legalMoves) {
+                this.version = version;
+                this.score = score;
+                this.inputSeq = inputSeq;
+                this.cells = cells;
+                this.before = before;
+                this.dir = dir;
+                this.legalMoves = legalMoves;
+            }
+        }
+
+        // Caller holds the engine lock
+        private Snapshot publish(byte[] before, int dir) {
+            Snapshot snap = new Snapshot(++snapshotVersion, engine.getScore(), lastAppliedInput, cellsLocked(), before, dir, engine.legalMoves());
+            latest.set(snap);
+            return snap;
+        }
+
+        // Shows the engine as it is now, without animation
+        private void updateGrid() {
+            Snapshot snap;
+            synchronized(engine) {
+                snap = publish(null, -1);
+            }
+            render(snap);
+        }
+
+        // Paints a snapshot; animates only if it directly follows the one on screen, so a UI that
+        // fell behind jumps to the newest board instead of replaying every intermediate frame
+        private void render(Snapshot snap) {
+            if(snap.version < renderedVersion) return;
+            long start = System.nanoTime();
+            clearHint();
+            boolean next = snap.version == renderedVersion + 1;
+            renderedVersion = Math.max(renderedVersion, snap.version);
+            if(boardCanvas != null) {
+                if(next && snap.before != null) boardCanvas.animateMove(snap.before, snap.dir, snap.cells);
+                else boardCanvas.setBoard(snap.cells);
+            } else {
+                for(int i=0; i<size; i++) {
+                    for(int j=0; j<size; j++) {
+                        int e = snap.cells[i * size + j];
+                        gridLabels[i][j].setText(ByteBoard.label(e));
+                        gridLabels[i][j].setBackground(getExponentColor(e));
+                        gridLabels[i][j].setForeground(e < 4 ? Color.DARK_GRAY : Color.WHITE);
+                    }
+                }
+            }
+            updateScore(snap.score);
+            Metrics.RENDER.record(System.nanoTime() - start);
+            // Queued behind the repaint just requested, so this runs once the frame is painted
+            long seq = snap.inputSeq;
+            if(seq > 0) SwingUtilities.invokeLater(() -> input.displayed(seq));
+        }
+
+        private void updateScore(long score) {
+            scoreLabel.setText("Score: " + score);
+            if(score > bestScore) {
+                bestScore = score;
+                bestScoreLabel.setText("Best: " + bestScore);
+                externalBestScoreLabel.setText("Best Score: " + bestScore);
+            }
+        }
+
+        private void undo() {
+            input.clear();
+            boolean undone;
+            synchronized(engine) {
+                undone = history.undo(engine);
+                if(undone) {
+                    if(RECORDER != null) RECORDER.undo(engine);
+                    gameUndos++;
+                    saveLocked();
+                }
+            }
+            if(undone) {
+                updateGrid();
+            } else {
+                JOptionPane.showMessageDialog(this, "No moves to undo.", "Undo", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }
+
+        private void redo() {
+            input.clear();
+            boolean redone;
+            synchronized(engine) {
+                redone = history.redo(engine);
+                if(redone) {
+                    if(RECORDER != null) RECORDER.redo(engine);
+                    saveLocked();
+                }
+            }
+            if(redone) {
+                updateGrid();
+            } else {
+                JOptionPane.showMessageDialog(this, "No moves to redo.", "Redo", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }
+
+        // The autoplay thread moves the engine off the EDT, so UI reads go through this lock
+        private long snapshotBoard() {
+            synchronized(engine) {
+                return engine.getBoard();
+            }
+        }
+
+        private byte[] snapshotCells() {
+            synchronized(engine) {
+                return cellsLocked();
+            }
+        }
+
+        private static MovePolicy createAi() {
+            int budget = Integer.getInteger("ai.budgetMs", 100), depth = Integer.getInteger("ai.depth", 6);
+            if("montecarlo".equals(System.getProperty("ai.engine"))) {
+                return new MonteCarlo(java.util.concurrent.ForkJoinPool.commonPool(), budget, true);
+            }
+            return NETWORK == null
+                    ? new Expectimax(depth, budget, new TranspositionTable(20, true))
+                    : new Expectimax(depth, budget, new TranspositionTable(20, true), NETWORK::evaluate);
+        }
+
+        private byte[] cellsLocked() {
+            byte[] cells = new byte[size * size];
+            engine.copyExponents(cells);
+            return cells;
+        }
+
+        // Searches off the EDT and highlights the suggested direction if the board hasn't changed since
+        private void showHint() {
+            long board = size == 4 ? snapshotBoard() : 0;
+            byte[] cells = size == 4 ? null : snapshotCells();
+            hintLabel.setText("Hint: ...");
+            new SwingWorker<String, Void>() {
+                protected String doInBackground() {
+                    if(cells != null) return tablebaseHint(cells);
+                    int dir = ai.nextMove(board, null);
+                    return dir < 0 ? "none" : DIRECTION_NAMES[dir];
+                }
+
+                protected void done() {
+                    try {
+                        String hint = get();
+                        if(cells == null ? snapshotBoard() != board : !java.util.Arrays.equals(snapshotCells(), cells)) return;
+                        hintLabel.setText("Hint: " + hint);
+                        hintLabel.setBackground(new Color(0xF1C40F));
+                        hintLabel.setForeground(Color.DARK_GRAY);
+                    } catch(Exception ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            }.execute();
+        }
+
+        // Exact best move on the 3x3 board and its chance of reaching the table's target tile
+        private static String tablebaseHint(byte[] cells) {
+            double p = TABLEBASE.winProbability(cells);
+            if(Double.isNaN(p)) return "beyond the tablebase";
+            int dir = TABLEBASE.bestMove(cells);
+            return String.format("%s (%.0f%% for %s)", dir < 0 ? "none" : DIRECTION_NAMES[dir], 100 * p,
+                    ByteBoard.label(TABLEBASE.targetExponent()));
+        }
+
+        private void clearHint() {
+            hintLabel.setText("Hint: -");
+            hintLabel.setBackground(Color.DARK_GRAY);
+            hintLabel.setForeground(Color.WHITE);
+        }
+
+        private void startAutoplay() {
+            Thread t = new Thread(this::autoplayLoop, "2048-autoplay");
+            t.setDaemon(true);
+            autoplayThread = t;
+            t.start();
+        }
+
+        private void stopAutoplay() {
+            // Taking the lock guarantees the worker can't apply another move after this returns
+            synchronized(engine) {
+                autoplayThread = null;
+            }
+            autoplayButton.setSelected(false);
+        }
+
+        // Runs on the autoplay thread: search, apply, and post a coalesced repaint; never waits on the EDT
+        private void autoplayLoop() {
+            Thread self = Thread.currentThread();
+            while(true) {
+                long board;
+                synchronized(engine) {
+                    if(autoplayThread != self || engine.isWinReached() || engine.isGameOver()) break;
+                    board = engine.getBoard();
+                }
+                int dir = ai.nextMove(board, null);
+                synchronized(engine) {
+                    if(autoplayThread != self || dir < 0) break;
+                    if(engine.getBoard() != board) continue;
+                    byte[] before = cellsLocked();
+                    long t0 = System.nanoTime();
+                    engine.move(dir);
+                    long t1 = System.nanoTime();
+                    spawnLocked();
+                    Metrics.MOVE.record(t1 - t0);
+                    Metrics.SPAWN.record(System.nanoTime() - t1);
+                    gameMoves++;
+                    history.record(engine);
+                    if(RECORDER != null) RECORDER.move(dir, engine);
+                    saveLocked();
+                    publish(before, dir);
+                }
+                requestRefresh();
+            }
+            SwingUtilities.invokeLater(() -> {
+                if(autoplayThread == self) stopAutoplay();
+            });
+        }
+
+        // Schedules at most one pending repaint, so fast input or autoplay skips frames instead of queueing them
+        private void requestRefresh() {
+            if(!refreshPending.compareAndSet(false, true)) return;
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                Metrics.EDT_DELAY.record(System.nanoTime() - posted);
+                refreshPending.set(false);
+                render(latest.get());
+                checkGameStatus();
+            });
+        }
+
+        private void checkGameStatus() {
+            if(endOverlay.isVisible()) return;
+            if(engine.isWinReached()) {
+                endOverlay.showWin(engine.getScore());
+                engine.clearWinReached();
+            } else if(latest.get().legalMoves == 0) {
+                synchronized(engine) {
+                    if(RECORDER != null) RECORDER.end(engine);
+                    saver.finished();
+                }
+                finishGame();
+                endOverlay.showLose(engine.getScore());
+            }
+        }
+
+        // Hands the current game to the statistics store (once; games without a move are skipped)
+        private void finishGame() {
+            if(!gameActive) return;
+            gameActive = false;
+            byte[] cells = snapshotCells();
+            int maxExponent = 0;
+            for(byte e : cells) maxExponent = Math.max(maxExponent, e);
+            StatsStore.Game game;
+            synchronized(engine) {
+                if(gameMoves == 0 || STATS == null) return;
+                long now = System.currentTimeMillis();
+                game = new StatsStore.Game(now, engine.getScore(), now - gameStartMillis, gameMoves, gameUndos, maxExponent, size);
+            }
+            STATS.recordGame(game);
+        }
+
+        // Tile colours indexed by log2 of the value (0 = empty); anything above 2048 shares the last one
+        private static final Color[] BOX_COLORS = {
+            new Color(0xE8CF15), new Color(0x1699F8), new Color(0x683085), new Color(0xE51C0B),
+            new Color(0x7D2910), new Color(0x107D29), new Color(0x066612), new Color(0x8779C7),
+            new Color(0xedcc61), new Color(0xedc850), new Color(0xedc53f), new Color(0xedc22e),
+            new Color(0x3c3a32)
+        };
+
+        static Color getBoxColor(int value) {
+            return getExponentColor(value == 0 ? 0 : Integer.numberOfTrailingZeros(value));
+        }
+
+        static Color getExponentColor(int exponent) {
+            return BOX_COLORS[Math.min(exponent, BOX_COLORS.length - 1)];
+        }
+    }
+
+    // Win / game-over screen drawn inside the game window, on the layered pane above the board.
+    // One instance per window, reused for every game end: showing it swaps the texts, background
+    // image (scaled once and cached by Assets) and music, then fades it in over the frozen board.
+    // Play Again fades it out while the next game starts underneath.
+    static class EndOverlay extends JComponent {
+        private static final int FADE_MS = 250;
+        private final GameWindow parent;
+        private final JLabel externalBestScoreLabel;
+        private final JLabel title = new JLabel(" ", SwingConstants.CENTER);
+        private final JLabel message = new JLabel(" ", SwingConstants.CENTER);
+        private final Timer fade = new Timer(16, e -> step());
+        private String image;
+        private int music = -1;
+        private float alpha;
+        private boolean fadingIn;
+        private long fadeStart, shownAt;
+
+        EndOverlay(GameWindow parent, JLabel externalBestScoreLabel) {
+            this.parent = parent;
+            this.externalBestScoreLabel = externalBestScoreLabel;
+            setLayout(new GridBagLayout());
+            setVisible(false);
+            // Swallow clicks so nothing under the overlay can be pressed
+            addMouseListener(new MouseAdapter() {});
+
+            GridBagConstraints gc = new GridBagConstraints();
+            gc.gridx = 0;
+            gc.anchor = GridBagConstraints.CENTER;
+            gc.insets = new Insets(20, 0, 20, 0);
+
+            title.setFont(new Font("Comic Sans MS", Font.BOLD, 80));
+            title.setForeground(Color.WHITE);
+            gc.gridy = 0;
+            add(title, gc);
+
+            message.setFont(new Font("Arial", Font.PLAIN, 48));
+            message.setForeground(Color.WHITE);
+            gc.gridy = 1;
+            add(message, gc);
+
+            JPanel btns = new JPanel();
+            btns.setOpaque(false);
+            JButton replay = new JButton("Play Again");
+            JButton exit = new JButton("Exit");
+            replay.setFont(new Font("Arial", Font.BOLD, 32));
+            exit.setFont(new Font("Arial", Font.BOLD, 32));
+            replay.setFocusable(false);
+            exit.setFocusable(false);
+            btns.add(replay);
+            btns.add(exit);
+            gc.gridy = 2;
+            add(btns, gc);
+
+            replay.addActionListener(e -> {
+                if(!fadingIn && fade.isRunning()) return;
+                stopSound(music);
+                externalBestScoreLabel.setText("Best Score: " + bestScore());
+                parent.initGame();
+                parent.bgMusic = playMusic("background_music.wav", true);
+                startFade(false);
+            });
+            exit.addActionListener(e -> {
+                stopSound(music);
+                System.exit(0);
+            });
+        }
+
+        void showWin(long score) {
+            present("Congratulations!", "You reached 2048! Your score: " + score, "win_image.jpg", "win_music.wav");
+        }
+
+        void showLose(long score) {
+            present("Game Over", "No more moves! Your score: " + score, "lost_image.jpg", "lost_music.wav");
+        }
+
+        private void present(String titleText, String messageText, String imageName, String musicName) {
+            stopSound(parent.bgMusic);
+            stopSound(music);
+            title.setText(titleText);
+            message.setText(messageText);
+            image = imageName;
+            music = playMusic(musicName, true);
+            Container layers = getParent();
+            setBounds(0, 0, layers.getWidth(), layers.getHeight());
+            shownAt = System.nanoTime();
+            startFade(true);
+        }
+
+        private void startFade(boolean in) {
+            fadingIn = in;
+            fadeStart = System.nanoTime();
+            if(in) {
+                alpha = 0f;
+                setVisible(true);
+            }
+            fade.restart();
+        }
+
+        private void step() {
+            float t = Math.min(1f, (System.nanoTime() - fadeStart) / (FADE_MS * 1e6f));
+            alpha = fadingIn ? t : 1f - t;
+            if(t >= 1f) {
+                fade.stop();
+                if(!fadingIn) {
+                    setVisible(false);
+                    parent.requestFocusInWindow();
+                }
+            }
+            repaint();
+        }
+
+        // Children are painted through the same translucent composite, so the whole screen fades
+        @Override
+        public void paint(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+            super.paint(g2);
+            g2.dispose();
+            if(shownAt != 0) {
+                Metrics.OVERLAY.record(System.nanoTime() - shownAt);
+                shownAt = 0;
+            }
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Image img = Assets.scaled(image, getWidth(), getHeight());
+            if(img != null) g.drawImage(img, 0, 0, null);
+        }
+    }
+
+    // Plays a recorded game back on a BoardCanvas at an adjustable speed, re-simulating it from
+    // its seed and stopping if the recording stops matching (see Replay.verify)
+    static class ReplayWindow extends JDialog {
+        private static final int MAX_SPEED_STEP = 14;   // 2^14 moves per second
+        private final GameRecording game;
+        private final GameEngine engine;
+        private final BoardCanvas canvas;
+        private final JLabel status = new JLabel(" ", SwingConstants.CENTER);
+        private final JSlider speed = new JSlider(0, MAX_SPEED_STEP, 2);
+        private final JToggleButton pause = new JToggleButton("Pause");
+        private final Timer timer;
+        private byte[] cells;
+        private int next;
+        private double pending;
+        private long lastTick;
+
+        public ReplayWindow(Frame owner, GameRecording game) {
+            super(owner, "Replay", false);
+            this.game = game;
+            this.engine = Replay.start(game);
+            this.cells = new byte[game.size * game.size];
+            engine.copyExponents(cells);
+
+            canvas = new BoardCanvas(game.size, false);
+            canvas.setBoard(cells);
+            canvas.setPreferredSize(new Dimension(600, 600));
+            add(canvas, BorderLayout.CENTER);
+
+            status.setFont(new Font("Arial", Font.BOLD, 24));
+            add(status, BorderLayout.NORTH);
+
+            JPanel controls = new JPanel();
+            JLabel speedLabel = new JLabel();
+            speed.addChangeListener(e -> speedLabel.setText((1 << speed.getValue()) + " moves/s"));
+            speedLabel.setText((1 << speed.getValue()) + " moves/s");
+            JButton close = new JButton("Close");
+            close.addActionListener(e -> dispose());
+            controls.add(new JLabel("Speed"));
+            controls.add(speed);
+            controls.add(speedLabel);
+            controls.add(pause);
+            controls.add(close);
+            add(controls, BorderLayout.SOUTH);
+
+            timer = new Timer(16, e -> tick());
+            addWindowListener(new WindowAdapter() {
+                public void windowClosed(WindowEvent e) {
+                    timer.stop();
+                }
+            });
+            updateStatus(null);
+            pack();
+            setLocationRelativeTo(owner);
+            setVisible(true);
+            lastTick = System.nanoTime();
+            timer.start();
+        }
+
+        // Applies as many moves as the speed allows for the time since the last tick
+        private void tick() {
+            long now = System.nanoTime();
+            double seconds = (now - lastTick) / 1e9;
+            lastTick = now;
+            if(pause.isSelected() || next >= game.moves) return;
+            pending = Math.min(pending + seconds * (1 << speed.getValue()), 1 << MAX_SPEED_STEP);
+            int steps = (int) pending;
+            if(steps == 0) return;
+            pending -= steps;
+            byte[] before = steps == 1 ? cells.clone() : null;
+            int dir = -1;
+            for(int i = 0; i < steps && next < game.moves; i++, next++) {
+                dir = game.direction(next);
+                if(!engine.move(dir)) {
+                    stop("Recording does not match: illegal move " + next);
+                    return;
+                }
+                if(!Replay.spawn(engine, game, next)) {
+                    stop("Recording does not match: spawn after move " + next);
+                    return;
+                }
+            }
+            engine.copyExponents(cells);
+            if(before != null) canvas.animateMove(before, dir, cells);
+            else canvas.setBoard(cells);
+            updateStatus(null);
+        }
+
+        private void stop(String problem) {
+            timer.stop();
+            engine.copyExponents(cells);
+            canvas.setBoard(cells);
+            updateStatus(problem);
+        }
+
+        private void updateStatus(String problem) {
+            status.setText(problem != null ? problem
+                    : "Move " + next + " / " + game.moves + "   Score: " + engine.getScore()
+                    + (next == game.moves && engine.getScore() != game.score ? "   (recorded score " + game.score + ")" : ""));
+        }
+    }
+
+    // Most recent game in the recording log, or null if there is none
+    private static GameRecording lastRecordedGame() {
+        try {
+            List<GameRecording> games = GameRecording.readAll(GameRecorder.defaultFile());
+            return games.isEmpty() ? null : games.get(games.size() - 1);
+        } catch(java.io.IOException e) {
+            System.err.println("Could not read game log: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Per-game history and the best score (-Dstats.file); null if it can't be opened
+    static final StatsStore STATS = StatsStore.openOrNull(StatsStore.defaultFile());
+
+    static long bestScore() {
+        return STATS == null ? 0 : STATS.bestScore();
+    }
+
+    // Trained n-tuple weights for hints (-Dntuple.file), mapped read-only; null if there are none
+    static final NTupleNetwork NETWORK = NTupleNetwork.openOrNull(NTupleNetwork.defaultFile());
+
+    // Unfinished game from the last run (-Dsave.file), read before any window opens; null if there is none
+    static final SavedGame SAVED = SavedGame.readOrNull(SavedGame.defaultFile());
+
+    // Exact 3x3 hints (see TablebaseGenerator); null without a table
+    static final Tablebase TABLEBASE = Tablebase.openOrNull(Tablebase.defaultFile());
+
+    // Every game is appended to the recording log (-Drecord.file); null if it can't be opened
+    static final GameRecorder RECORDER = GameRecorder.openOrNull(GameRecorder.defaultFile());
+
+    // Audio helper methods: everything plays through one shared AudioEngine mixer.
+    // The mixer's buffer size in frames can be tuned with -Daudio.bufferFrames
+
+    static final AudioEngine AUDIO = AudioEngine.open(Integer.getInteger("audio.bufferFrames", 256), 16);
+
+    private static int playMusic(String filename, boolean loop) {
+        int sound = loadSound(filename);
+        AUDIO.play(sound, AudioEngine.BUS_MUSIC, loop);
+        return sound;
+    }
+
+    private static int loadSound(String filename) {
+        int sound = AUDIO.sound(filename);
+        if(sound < 0) System.err.println("Could not load audio file: " + filename);
+        return sound;
+    }
+
+    private static void playSound(int sound) {
+        AUDIO.play(sound, AudioEngine.BUS_EFFECTS, false);
+    }
+
+    private static void stopSound(int sound) {
+        AUDIO.stop(sound);
+    }
+}
+
+
+
+
@@ -0,0 +1,203 @@
+package game2048;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongToDoubleFunction;
+
+// Depth-limited expectimax search over the 90% 2 / 10% 4 spawn rule in GameEngine.addNewTile.
+// Iterative deepening runs until the per-move time budget is spent; at each depth the four root
+// directions are searched in parallel on the fork-join pool and share one TranspositionTable.
+// Leaves (afterstates) are scored by the hand-tuned line heuristic, or by a value function given
+// to the constructor, such as a trained NTupleNetwork. A value function estimates the score still
+// to come, so with one the points each move earns on the way to a leaf are added in, the same
+// reward + V(afterstate) the network was trained on.
+class Expectimax implements MovePolicy {
+    // Chance branches less likely than this are cut off and evaluated statically
+    private static final double PROB_THRESHOLD = 0.0001;
+
+    // Static evaluation of a single row/column, indexed by its 16-bit BitBoard line
+    private static final float[] LINE_HEURISTIC = new float[65536];
+
+    private static final double LOST_PENALTY = 200000.0;
+    private static final double MONOTONICITY_POWER = 4.0, MONOTONICITY_WEIGHT = 47.0;
+    private static final double SUM_POWER = 3.5, SUM_WEIGHT = 11.0;
+    private static final double MERGES_WEIGHT = 700.0, EMPTY_WEIGHT = 270.0;
+
+    static {
+        int[] line = new int[4];
+        for(int key = 0; key < 65536; key++) {
+            for(int i = 0; i < 4; i++) line[i] = (key >>> (4 * i)) & 0xF;
+            double sum = 0;
+            int empty = 0, merges = 0, prev = 0, counter = 0;
+            for(int rank : line) {
+                sum += Math.pow(rank, SUM_POWER);
+                if(rank == 0) {
+                    empty++;
+                } else {
+                    if(prev == rank) {
+                        counter++;
+                    } else if(counter > 0) {
+                        merges += 1 + counter;
+                        counter = 0;
+                    }
+                    prev = rank;
+                }
+            }
+            if(counter > 0) merges += 1 + counter;
+
+            double monoLeft = 0, monoRight = 0;
+            for(int i = 1; i < 4; i++) {
+                double a = Math.pow(line[i-1], MONOTONICITY_POWER), b = Math.pow(line[i], MONOTONICITY_POWER);
+                if(line[i-1] > line[i]) monoLeft += a - b;
+                else monoRight += b - a;
+            }
+            LINE_HEURISTIC[key] = (float) (LOST_PENALTY + EMPTY_WEIGHT * empty + MERGES_WEIGHT * merges
+                    - MONOTONICITY_WEIGHT * Math.min(monoLeft, monoRight) - SUM_WEIGHT * sum);
+        }
+    }
+
+    // Thrown (without a stack trace) to unwind a search that ran past its deadline
+    private static final RuntimeException TIMEOUT = new RuntimeException("search timed out", null, false, false) {};
+
+    private final int maxDepth;
+    private final long timeBudgetNanos;
+    private final TranspositionTable table;
+    private final LongToDoubleFunction evaluator;
+    private final boolean rewards;   // add each move's points: the evaluator is a value function
+
+    Expectimax(int maxDepth, long timeBudgetMillis, TranspositionTable table) {
+        this(maxDepth, timeBudgetMillis, table, Expectimax::evaluate, false);
+    }
+
+    // `value` estimates the score still to come from an afterstate
+    Expectimax(int maxDepth, long timeBudgetMillis, TranspositionTable table, LongToDoubleFunction value) {
+        this(maxDepth, timeBudgetMillis, table, value, true);
+    }
+
+    private Expectimax(int maxDepth, long timeBudgetMillis, TranspositionTable table, LongToDoubleFunction evaluator,
+            boolean rewards) {
+        this.maxDepth = maxDepth;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.table = table;
+        this.evaluator = evaluator;
+        this.rewards = rewards;
+    }
+
+    @Override
+    public int nextMove(long board, Random rnd) {
+        return bestMove(board);
+    }
+
+    // Best BitBoard direction for the position, or -1 if no move is legal.
+    // Depth 1 always completes; deeper iterations are only used if they finish within the budget.
+    int bestMove(long board) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        int best = -1;
+        for(int depth = 1; depth <= maxDepth; depth++) {
+            int move = searchRoot(board, depth, depth == 1 ? Long.MAX_VALUE : deadline);
+            if(move == -2) break;
+            best = move;
+            if(best < 0 || System.nanoTime() >= deadline) break;
+        }
+        return best;
+    }
+
+    // Returns the best direction at this depth, -1 if there is none, or -2 if the deadline passed
+    private int searchRoot(long board, int depth, long deadline) {
+        List<RootTask> tasks = new ArrayList<>(4);
+        for(int legal = BitBoard.legalMoves(board); legal != 0; legal &= legal - 1) {
+            int dir = Integer.numberOfTrailingZeros(legal);
+            tasks.add(new RootTask(dir, BitBoard.move(board, dir), reward(board, dir), depth, deadline));
+        }
+        if(tasks.isEmpty()) return -1;
+        ForkJoinTask.invokeAll(tasks);
+
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(RootTask task : tasks) {
+            double value = task.join();
+            if(Double.isNaN(value)) return -2;
+            if(value > bestValue) {
+                bestValue = value;
+                best = task.dir;
+            }
+        }
+        return best;
+    }
+
+    private class RootTask extends RecursiveTask<Double> {
+        final int dir;
+        final long board;
+        final double reward;
+        final int depth;
+        final long deadline;
+
+        RootTask(int dir, long board, double reward, int depth, long deadline) {
+            this.dir = dir;
+            this.board = board;
+            this.reward = reward;
+            this.depth = depth;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Double compute() {
+            try {
+                return reward + chance(board, depth, 1.0, deadline);
+            } catch(RuntimeException e) {
+                if(e == TIMEOUT) return Double.NaN;
+                throw e;
+            }
+        }
+    }
+
+    // Average over every empty cell receiving a 2 (90%) or a 4 (10%)
+    private double chance(long board, int depth, double prob, long deadline) {
+        if(depth <= 0 || prob < PROB_THRESHOLD) return evaluator.applyAsDouble(board);
+        double cached = table.get(board, depth);
+        if(!Double.isNaN(cached)) return cached;
+
+        int empty = BitBoard.countEmpty(board);
+        prob /= empty;
+        double sum = 0;
+        long free = ~BitBoard.occupiedMask(board) & 0x1111111111111111L;
+        while(free != 0) {
+            long cell = free & -free;   // exponent 1 (a 2) at that cell; cell << 1 is a 4
+            free ^= cell;
+            sum += 0.9 * max(board | cell, depth, prob * 0.9, deadline);
+            sum += 0.1 * max(board | cell << 1, depth, prob * 0.1, deadline);
+        }
+        double value = sum / empty;
+        table.put(board, depth, value);
+        return value;
+    }
+
+    // Best of the legal moves; a position with no legal move scores 0
+    private double max(long board, int depth, double prob, long deadline) {
+        if(depth >= 2 && System.nanoTime() > deadline) throw TIMEOUT;
+        double best = 0;
+        for(int legal = BitBoard.legalMoves(board); legal != 0; legal &= legal - 1) {
+            int dir = Integer.numberOfTrailingZeros(legal);
+            best = Math.max(best, reward(board, dir) + chance(BitBoard.move(board, dir), depth - 1, prob, deadline));
+        }
+        return best;
+    }
+
+    // Points for sliding the board in dir, when the evaluator wants them
+    private double reward(long board, int dir) {
+        return rewards ? BitBoard.moveInfo(board, dir) & BitBoard.SCORE_MASK : 0;
+    }
+
+    // Sum of the line heuristic over all rows and columns
+    static double evaluate(long board) {
+        double value = 0;
+        for(int i = 0; i < 4; i++) {
+            value += LINE_HEURISTIC[BitBoard.rowKey(board, i)];
+            value += LINE_HEURISTIC[BitBoard.columnKey(board, i)];
+        }
+        return value;
+    }
+}
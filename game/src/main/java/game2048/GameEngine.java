@@ -0,0 +1,272 @@
+package game2048;
+
+// UI-free game rules: board, score, tile spawning and the win/lose checks.
+// GameWindow is a view over one of these; headless tools drive it directly.
+// The classic 4x4 board runs on the BitBoard tables; other sizes (3x3 up to 8x8) use a
+// ByteBoard byte[] with the same rules.
+// Spawns come from a SpawnRandom seeded per game, so a game is fully determined by its seed
+// and moves (see GameRecorder). The generator state is saved with every undo record, which
+// keeps undo + a different move reproducible as well. A spawn costs one draw for the cell and
+// one for the value: the empty cells are a bitmask and the k-th set bit is found directly,
+// so crowded boards are no slower than empty ones.
+// The set of legal directions is cached as a 4-bit mask (bit = BitBoard direction): moves,
+// spawns and restores drop it and the first query for the new position works it out, so an
+// illegal move is rejected without touching the board and game over is a test for an empty
+// mask. Keeping it up to date eagerly does not pay: a move rewrites every row and column, so
+// there is one full derivation per position either way, and eagerly it is also paid by
+// positions nobody asks about (restores in search and undo).
+class GameEngine {
+    static final int MIN_SIZE = 3, MAX_SIZE = 8;
+    static final int FOUR_PERCENT = 10;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long NIBBLE_MARKERS = 0x1111111111111111L;
+
+    private final int size;
+    private long board;           // 4x4 only
+    private final byte[] cells;   // other sizes, row-major exponents; null for 4x4
+    private long emptyMask;       // other sizes, bit i set when cells[i] is empty
+    private long score;
+    private boolean winReached;
+    private long nextSeed, gameSeed;
+    private final SpawnRandom rng;
+    private final int fourPercent;
+    private int lastSpawnCell = -1, lastSpawnExponent;
+    private int legalMoves = -1;  // -1 until computed for the current position
+
+    GameEngine() {
+        this(4, java.util.concurrent.ThreadLocalRandom.current().nextLong());
+    }
+
+    GameEngine(long seed) {
+        this(4, seed);
+    }
+
+    // Generator and 4-spawn chance from -Dspawn.rng (splitmix, xoroshiro) and -Dspawn.fourPercent
+    GameEngine(int size, long seed) {
+        this(size, seed, SpawnRandom.byName(System.getProperty("spawn.rng", "splitmix")),
+                Integer.getInteger("spawn.fourPercent", FOUR_PERCENT));
+    }
+
+    // The first reset() plays the game with this seed; later resets derive new seeds from it.
+    // The engine owns `rng` from here on: it is reseeded for every game.
+    GameEngine(int size, long seed, SpawnRandom rng, int fourPercent) {
+        if(size < MIN_SIZE || size > MAX_SIZE) throw new IllegalArgumentException("Unsupported board size: " + size);
+        if(fourPercent < 0 || fourPercent > 100) throw new IllegalArgumentException("Bad 4-spawn percentage: " + fourPercent);
+        this.size = size;
+        this.cells = size == 4 ? null : new byte[size * size];
+        this.nextSeed = seed;
+        this.rng = rng;
+        this.fourPercent = fourPercent;
+    }
+
+    // Starts the next game in this engine's seed sequence
+    void reset() {
+        long seed = nextSeed;
+        nextSeed = SpawnRandom.mix(nextSeed + GOLDEN_GAMMA);
+        reset(seed);
+    }
+
+    // Clears the board and places the two starting tiles of the game with this seed
+    void reset(long seed) {
+        gameSeed = seed;
+        rng.seed(seed);
+        board = 0L;
+        if(cells != null) {
+            java.util.Arrays.fill(cells, (byte) 0);
+            emptyMask = ByteBoard.emptyMask(cells);
+        }
+        score = 0;
+        winReached = false;
+        legalMoves = -1;
+        addNewTile();
+        addNewTile();
+    }
+
+    // Drops a 2 or (fourPercent of the time) a 4 on a uniformly chosen empty cell
+    boolean addNewTile() {
+        long empty = cells == null ? ~BitBoard.occupiedMask(board) & NIBBLE_MARKERS : emptyMask;
+        if(empty == 0) return false;
+        int bit = selectBit(empty, rng.nextInt(Long.bitCount(empty)));
+        int exponent = rng.nextInt(100) < fourPercent ? 2 : 1;
+        placeTile(cells == null ? bit >>> 2 : bit, exponent);
+        return true;
+    }
+
+    // Puts a tile on an empty cell (row * size + col) chosen elsewhere, such as by the hard-mode
+    // AdversarialSpawner; it counts as the latest spawn like one from addNewTile
+    void placeTile(int cell, int exponent) {
+        if(cells == null) {
+            board |= (long) exponent << (4 * cell);
+        } else {
+            cells[cell] = (byte) exponent;
+            emptyMask &= ~(1L << cell);
+        }
+        legalMoves = -1;
+        lastSpawnCell = cell;
+        lastSpawnExponent = exponent;
+    }
+
+    // Position of the k-th (from 0) set bit of mask, by binary search on popcounts: six steps
+    // whatever the mask
+    static int selectBit(long mask, int k) {
+        int pos = 0;
+        for(int width = 32; width > 0; width >>>= 1) {
+            int low = Long.bitCount((mask >>> pos) & ((1L << width) - 1));
+            if(k >= low) {
+                k -= low;
+                pos += width;
+            }
+        }
+        return pos;
+    }
+
+    // Slides the board in one of the BitBoard directions; returns false if nothing moved
+    boolean move(int dir) {
+        if((legalMoves() & 1 << dir) == 0) return false;
+        legalMoves = -1;
+        if(cells != null) {
+            long info = ByteBoard.move(cells, size, dir);
+            emptyMask = ByteBoard.emptyMask(cells);
+            score = Math.min(ByteBoard.SCORE_MASK, score + (info & ByteBoard.SCORE_MASK));
+            if((info & ByteBoard.WIN) != 0) winReached = true;
+            return true;
+        }
+        int info = BitBoard.moveInfo(board, dir);
+        board = BitBoard.move(board, dir);
+        score += info & BitBoard.SCORE_MASK;
+        if((info & BitBoard.WIN) != 0) winReached = true;
+        return true;
+    }
+
+    boolean moveUp() { return move(BitBoard.UP); }
+    boolean moveDown() { return move(BitBoard.DOWN); }
+    boolean moveLeft() { return move(BitBoard.LEFT); }
+    boolean moveRight() { return move(BitBoard.RIGHT); }
+
+    // Bit `dir` set for every BitBoard direction that would change the board
+    int legalMoves() {
+        if(legalMoves < 0) legalMoves = cells == null ? BitBoard.legalMoves(board) : ByteBoard.legalMoves(cells, size);
+        return legalMoves;
+    }
+
+    boolean canMove(int dir) {
+        return (legalMoves() & 1 << dir) != 0;
+    }
+
+    boolean isGridFull() {
+        return cells == null ? BitBoard.isFull(board) : emptyMask == 0;
+    }
+
+    boolean isGameOver() {
+        return legalMoves() == 0;
+    }
+
+    // True once a merge has produced a 2048 tile, until clearWinReached() is called
+    boolean isWinReached() {
+        return winReached;
+    }
+
+    void clearWinReached() {
+        winReached = false;
+    }
+
+    // Puts back a previously saved 4x4 position
+    void restore(long board, long score) {
+        requireBitBoard();
+        this.board = board;
+        this.score = score;
+        this.winReached = false;
+        this.legalMoves = -1;
+    }
+
+    // Number of longs saveState writes: the packed board, the score and the spawn generator
+    int stateWords() {
+        return (cells == null ? 1 : (cells.length + 7) / 8) + 1 + rng.stateWords();
+    }
+
+    void saveState(long[] dst, int offset) {
+        if(cells == null) {
+            dst[offset++] = board;
+        } else {
+            for(int i = 0; i < cells.length; i += 8) {
+                long word = 0;
+                for(int j = 0; j < 8 && i + j < cells.length; j++) word |= (cells[i + j] & 0xFFL) << (8 * j);
+                dst[offset++] = word;
+            }
+        }
+        dst[offset] = score;
+        rng.save(dst, offset + 1);
+    }
+
+    // Inverse of saveState (used by Undo/Redo)
+    void loadState(long[] src, int offset) {
+        if(cells == null) {
+            board = src[offset++];
+        } else {
+            for(int i = 0; i < cells.length; i += 8) {
+                long word = src[offset++];
+                for(int j = 0; j < 8 && i + j < cells.length; j++) cells[i + j] = (byte) (word >>> (8 * j));
+            }
+            emptyMask = ByteBoard.emptyMask(cells);
+        }
+        score = src[offset];
+        rng.load(src, offset + 1);
+        winReached = false;
+        legalMoves = -1;
+    }
+
+    // The 4x4 bitboard; only valid when getSize() == 4
+    long getBoard() {
+        requireBitBoard();
+        return board;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    long getScore() {
+        return score;
+    }
+
+    int getExponent(int row, int col) {
+        return cells == null ? BitBoard.exponent(board, row, col) : cells[row * size + col];
+    }
+
+    // Copies the row-major exponents into dst (length size * size)
+    void copyExponents(byte[] dst) {
+        if(cells != null) {
+            System.arraycopy(cells, 0, dst, 0, cells.length);
+        } else {
+            for(int i = 0; i < 16; i++) dst[i] = (byte) ((board >>> (4 * i)) & 0xF);
+        }
+    }
+
+    // Seed of the current game
+    long getSeed() {
+        return gameSeed;
+    }
+
+    // Percentage of spawns that are 4s
+    int getFourPercent() {
+        return fourPercent;
+    }
+
+    // SpawnRandom.id() of the spawn generator
+    int getGeneratorId() {
+        return rng.id();
+    }
+
+    // Cell index (row * size + col) and exponent of the most recently spawned tile
+    int getLastSpawnCell() {
+        return lastSpawnCell;
+    }
+
+    int getLastSpawnExponent() {
+        return lastSpawnExponent;
+    }
+
+    private void requireBitBoard() {
+        if(cells != null) throw new IllegalStateException("Bitboard access on a " + size + "x" + size + " board");
+    }
+}
@@ -0,0 +1,180 @@
+package game2048;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends games to a memory-mapped log (format in GameRecording) while they are played.
+// Each move is a few bit writes into the mapping plus a header update; the OS writes the
+// pages back, so nothing on the game path waits for disk. The mapped window covers the
+// current game and is remapped further along the file when a game outgrows it.
+// Undo pulls the end of the game back one move, and redo pushes it forward again over the
+// bits that are still there, so the recording always matches the line actually played.
+// Calls are synchronized because the autoplay thread records moves too.
+final class GameRecorder implements AutoCloseable {
+    private static final int WINDOW = 1 << 20;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer fileHeader;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private long gameStart = -1;   // file offset of the current game, -1 if none
+    private int size, moves, redoable, flags;
+
+    private GameRecorder(FileChannel channel) throws IOException {
+        this.channel = channel;
+        fileHeader = channel.map(FileChannel.MapMode.READ_WRITE, 0, GameRecording.FILE_HEADER);
+        fileHeader.order(ByteOrder.LITTLE_ENDIAN);
+        if(fileHeader.getLong(0) != GameRecording.MAGIC) {
+            fileHeader.putLong(0, GameRecording.MAGIC);
+            fileHeader.putLong(8, GameRecording.FILE_HEADER);
+        }
+    }
+
+    // The game log, games.rec in the working directory unless -Drecord.file says otherwise
+    static Path defaultFile() {
+        return Path.of(System.getProperty("record.file", "games.rec"));
+    }
+
+    static GameRecorder open(Path file) throws IOException {
+        return new GameRecorder(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    // Opens the log, or returns null (after printing why) so the game can run without recording
+    static GameRecorder openOrNull(Path file) {
+        try {
+            return open(file);
+        } catch(IOException | RuntimeException e) {
+            System.err.println("Game recording disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Starts recording the game the engine was just reset to; ends any game still open
+    synchronized void begin(GameEngine engine) {
+        begin(engine, false);
+    }
+
+    // placed: the game's spawns come from the hard-mode AdversarialSpawner, not the generator
+    synchronized void begin(GameEngine engine, boolean placed) {
+        finish(0, -1);
+        size = engine.getSize();
+        moves = 0;
+        redoable = 0;
+        flags = engine.getGeneratorId() << GameRecording.GENERATOR_SHIFT | (placed ? GameRecording.FLAG_PLACED : 0);
+        gameStart = fileHeader.getLong(8);
+        if(!ensureMapped(GameRecording.length(size, 64))) return;
+        window.putInt(at(0), GameRecording.GAME_MAGIC);
+        window.put(at(4), (byte) GameRecording.VERSION);
+        window.put(at(5), (byte) size);
+        window.put(at(6), (byte) BitBoard.WIN_EXPONENT);
+        window.put(at(7), (byte) engine.getFourPercent());
+        window.putLong(at(8), engine.getSeed());
+        window.putLong(at(16), System.currentTimeMillis());
+        int cellBits = GameRecording.cellBits(size), found = 0;
+        for(int cell = 0; cell < size * size && found < 2; cell++) {
+            int e = engine.getExponent(cell / size, cell % size);
+            if(e != 0) writeBits(found++ * (1 + cellBits), 1 + cellBits, cell << 1 | (e - 1));
+        }
+        commit(engine.getScore());
+    }
+
+    // Call after engine.move(dir) and engine.addNewTile() succeeded
+    synchronized void move(int dir, GameEngine engine) {
+        if(gameStart < 0) return;
+        int cellBits = GameRecording.cellBits(size);
+        if(!ensureMapped(GameRecording.length(size, moves + 64))) return;
+        writeBits(2L * (1 + cellBits) + (long) moves * (3 + cellBits), 3 + cellBits,
+                engine.getLastSpawnCell() << 3 | (engine.getLastSpawnExponent() - 1) << 2 | dir);
+        moves++;
+        redoable = 0;
+        if(engine.isWinReached()) flags |= GameRecording.FLAG_WON;
+        commit(engine.getScore());
+    }
+
+    synchronized void undo(GameEngine engine) {
+        if(gameStart < 0 || moves == 0) return;
+        moves--;
+        redoable++;
+        commit(engine.getScore());
+    }
+
+    synchronized void redo(GameEngine engine) {
+        if(gameStart < 0 || redoable == 0) return;
+        moves++;
+        redoable--;
+        commit(engine.getScore());
+    }
+
+    // Marks the current game finished, noting whether it was won and/or ran out of moves
+    synchronized void end(GameEngine engine) {
+        int outcome = engine.isGameOver() ? GameRecording.FLAG_LOST : 0;
+        if(engine.isWinReached()) outcome |= GameRecording.FLAG_WON;
+        finish(outcome, engine.getScore());
+    }
+
+    @Override
+    public synchronized void close() {
+        finish(0, -1);
+        try {
+            if(window != null) window.force();
+            fileHeader.force();
+            channel.close();
+        } catch(IOException e) {
+            System.err.println("Could not close game log: " + e.getMessage());
+        }
+    }
+
+    private void finish(int outcome, long score) {
+        if(gameStart < 0) return;
+        flags |= outcome | GameRecording.FLAG_FINISHED;
+        commit(score >= 0 ? score : window.getLong(at(GameRecording.SCORE_OFFSET)));
+        gameStart = -1;
+    }
+
+    // Publishes the current move count, flags and score, and moves the end of the log after the game
+    private void commit(long score) {
+        window.putInt(at(GameRecording.MOVES_OFFSET), moves);
+        window.putInt(at(GameRecording.FLAGS_OFFSET), flags);
+        window.putLong(at(GameRecording.SCORE_OFFSET), score);
+        fileHeader.putLong(8, gameStart + GameRecording.length(size, moves));
+    }
+
+    // Makes sure [gameStart, gameStart + bytes + 1) lies inside the mapped window; on failure the
+    // current game stops being recorded (what was written so far stays valid)
+    private boolean ensureMapped(int bytes) {
+        long need = gameStart + bytes + 1;
+        if(window != null && gameStart >= windowStart && need <= windowStart + window.capacity()) return true;
+        int length = Math.max(WINDOW, Integer.highestOneBit(bytes) << 1);
+        try {
+            if(window != null) window.force();
+            window = channel.map(FileChannel.MapMode.READ_WRITE, gameStart, length);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = gameStart;
+            return true;
+        } catch(IOException e) {
+            System.err.println("Game recording stopped: " + e.getMessage());
+            gameStart = -1;
+            return false;
+        }
+    }
+
+    private int at(int offset) {
+        return (int) (gameStart - windowStart) + offset;
+    }
+
+    // Overwrites `count` (<= 9) bits of the current game's stream at `bit`, LSB first
+    private void writeBits(long bit, int count, int value) {
+        int i = at(GameRecording.GAME_HEADER) + (int) (bit >>> 3), shift = (int) (bit & 7);
+        int mask = ((1 << count) - 1) << shift;
+        int word = (window.get(i) & 0xFF) | (window.get(i + 1) & 0xFF) << 8;
+        word = (word & ~mask) | (value << shift & mask);
+        window.put(i, (byte) word);
+        window.put(i + 1, (byte) (word >>> 8));
+    }
+}
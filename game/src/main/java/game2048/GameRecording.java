@@ -0,0 +1,141 @@
+package game2048;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// One recorded game inside a GameRecorder log, read straight out of the mapped file.
+//
+// Log layout (little-endian):
+//   file header  long MAGIC, long end (bytes of the file in use)
+//   per game     int GAME_MAGIC, byte version, byte size, byte winExponent, byte fourPercent,
+//                long seed, long startMillis, int moves, int flags, long score,
+//                (flags bits 8..15 hold the SpawnRandom id of the spawn generator; FLAG_PLACED
+//                marks a hard-mode game, whose tiles after the starting two were chosen by the
+//                AdversarialSpawner rather than drawn, so replays place them as recorded)
+//                then a bit stream: the two starting tiles as (four:1, cell:cellBits),
+//                then every move as (dir:2, four:1, cell:cellBits) for the tile it spawned.
+// Version 1 games were spawned by an older algorithm (rejection sampling) and are still
+// listed, but can no longer be re-simulated. A 4x4 game costs 7 bits per move. The header is
+// kept current after every move, so a game cut short by a crash is still readable up to its
+// last move.
+final class GameRecording {
+    static final long MAGIC = 0x3143455238343032L;   // "2048REC1"
+    static final int FILE_HEADER = 16;
+    static final int GAME_MAGIC = 0x4D414732;          // "2GAM"
+    static final int VERSION = 2;
+    static final int GAME_HEADER = 40;
+    static final int FLAG_FINISHED = 1, FLAG_WON = 2, FLAG_LOST = 4, FLAG_PLACED = 8;
+    static final int GENERATOR_SHIFT = 8;
+
+    // Header field offsets within a game
+    static final int MOVES_OFFSET = 24, FLAGS_OFFSET = 28, SCORE_OFFSET = 32;
+
+    private final ByteBuffer buf;   // starts at this game's header
+    final int version, size, winExponent, fourPercent, moves, flags, generator;
+    final long seed, startMillis, score;
+    final int cellBits, entryBits;
+
+    private GameRecording(ByteBuffer buf) {
+        this.buf = buf;
+        version = buf.get(4);
+        size = buf.get(5);
+        winExponent = buf.get(6);
+        fourPercent = buf.get(7);
+        seed = buf.getLong(8);
+        startMillis = buf.getLong(16);
+        moves = buf.getInt(MOVES_OFFSET);
+        flags = buf.getInt(FLAGS_OFFSET);
+        score = buf.getLong(SCORE_OFFSET);
+        generator = (flags >>> GENERATOR_SHIFT) & 0xFF;
+        cellBits = cellBits(size);
+        entryBits = 3 + cellBits;
+    }
+
+    // Bits needed for a cell index on a size x size board
+    static int cellBits(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size * size - 1);
+    }
+
+    // Length in bytes of a game with this many moves, header included
+    static int length(int size, int moves) {
+        long bits = 2L * (1 + cellBits(size)) + (long) moves * (3 + cellBits(size));
+        return GAME_HEADER + (int) ((bits + 7) >>> 3);
+    }
+
+    int length() {
+        return length(size, moves);
+    }
+
+    // Starting tile i (0 or 1): cell << 8 | exponent
+    int start(int i) {
+        int v = bits(i * (1 + cellBits), 1 + cellBits);
+        return (v >>> 1) << 8 | ((v & 1) + 1);
+    }
+
+    int direction(int move) {
+        return bits(entryOffset(move), 2);
+    }
+
+    int spawnCell(int move) {
+        return bits(entryOffset(move) + 3, cellBits);
+    }
+
+    int spawnExponent(int move) {
+        return bits(entryOffset(move) + 2, 1) + 1;
+    }
+
+    boolean isFinished() {
+        return (flags & FLAG_FINISHED) != 0;
+    }
+
+    private long entryOffset(int move) {
+        return 2L * (1 + cellBits) + (long) move * entryBits;
+    }
+
+    // `count` (<= 9) bits of the stream starting at `bit`, LSB first
+    private int bits(long bit, int count) {
+        int i = GAME_HEADER + (int) (bit >>> 3);
+        int window = buf.get(i) & 0xFF;
+        if(i + 1 < buf.limit()) window |= (buf.get(i + 1) & 0xFF) << 8;
+        return (window >>> (bit & 7)) & ((1 << count) - 1);
+    }
+
+    // Maps the log read-only and returns every well-formed game in it, in order
+    static List<GameRecording> readAll(Path file) throws IOException {
+        List<GameRecording> games = new ArrayList<>();
+        try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(ch.size() < FILE_HEADER) return games;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if(map.getLong(0) != MAGIC) throw new IOException("Not a game log: " + file);
+            forEach(map, FILE_HEADER, (int) Math.min(map.getLong(8), ch.size()), games::add);
+        }
+        return games;
+    }
+
+    // Hands every well-formed game in buf[pos, end) to `action`, in order, and returns where the
+    // games stop: `end`, or the first byte that is not the start of a complete game
+    static int forEach(ByteBuffer buf, int pos, int end, Consumer<GameRecording> action) {
+        for(int length; (length = lengthAt(buf, pos, end)) > 0; pos += length) {
+            action.accept(new GameRecording(buf.slice(pos, length).order(ByteOrder.LITTLE_ENDIAN)));
+        }
+        return pos;
+    }
+
+    // Length of the well-formed game starting at buf[pos] that ends by `end`, or 0 if there is none
+    static int lengthAt(ByteBuffer buf, int pos, int end) {
+        if(pos + GAME_HEADER > end || buf.getInt(pos) != GAME_MAGIC || buf.get(pos + 4) < 1 || buf.get(pos + 4) > VERSION) return 0;
+        int size = buf.get(pos + 5), moves = buf.getInt(pos + MOVES_OFFSET);
+        if(size < GameEngine.MIN_SIZE || size > GameEngine.MAX_SIZE || moves < 0) return 0;
+        int length = length(size, moves);
+        return pos + length > end ? 0 : length;
+    }
+}
@@ -0,0 +1,323 @@
+package game2048;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless server hosting many independent games over a line protocol on a loopback TCP port,
+// for leaderboards and bot-vs-bot runs. Rules are GameEngine's, exactly as in GameWindow.
+// Each connection gets its own thread: a virtual thread on runtimes that have them, a small-stack
+// platform thread otherwise. Sessions live in SessionStores (a few longs each), not as objects.
+//
+// Requests, one per line; every session reply is "OK id moves score legal won cells" where
+// legal is the GameEngine.legalMoves() mask (0 = game over) and cells the row-major exponents
+// separated by commas:
+//   NEW [size [seed]]   start a game (default 4x4, random seed)
+//   MOVE id dirs        apply a batch of moves, e.g. "MOVE 8 LLURDL" (U, D, L, R; at most
+//                       MAX_BATCH); moves that change nothing are skipped, game over stops the batch
+//   GET id              current state
+//   END id              drop the session ("OK id")
+//   STATS [gc]          "OK sessions=.. connections=.. storeBytes=.. heapUsed=.. requests=..
+//                       p50us=.. p99us=.. maxus=.." (MOVE requests); gc runs a collection first
+//                       so heapUsed is comparable
+//   QUIT
+// Errors are "ERR reason". Sessions belong to the connection that created them and end with it.
+// Replies are flushed only once no further request is waiting, so pipelined requests cost one write.
+//
+// Usage: java -cp game/target/classes game2048.GameServer [port]   (see LoadGenerator)
+public class GameServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 2048;
+    static final int MAX_BATCH = 1024;
+    private static final int SIZES = GameEngine.MAX_SIZE - GameEngine.MIN_SIZE + 1;
+
+    private static final boolean VIRTUAL_THREADS;
+    private static final java.lang.reflect.Method NEW_VIRTUAL_EXECUTOR;
+
+    static {
+        java.lang.reflect.Method m = null;
+        try {
+            m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch(NoSuchMethodException e) {
+            // pre-21 runtime
+        }
+        NEW_VIRTUAL_EXECUTOR = m;
+        VIRTUAL_THREADS = m != null;
+    }
+
+    private final ServerSocket socket;
+    private final ExecutorService connections = connectionExecutor();
+    private final SessionStore[] stores = new SessionStore[SIZES];
+    private final AtomicInteger nextConnection = new AtomicInteger(), liveConnections = new AtomicInteger();
+    private final int maxSessions = Integer.getInteger("server.maxSessions", 4_000_000);
+    private final Histogram latency = Metrics.SERVER_MOVE;
+
+    GameServer(int port) throws IOException {
+        socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        for(int i = 0; i < SIZES; i++) {
+            int size = GameEngine.MIN_SIZE + i;
+            stores[i] = new SessionStore(size, new GameEngine(size, 0).stateWords());
+        }
+        Metrics.gauge("server.sessions", this::sessions);
+        Metrics.gauge("server.connections", liveConnections::get);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("server.port", DEFAULT_PORT);
+        Metrics.start();
+        try(GameServer server = new GameServer(port)) {
+            System.out.printf("Serving 2048 on %s:%d (%s)%n", server.socket.getInetAddress().getHostAddress(),
+                    server.socket.getLocalPort(), VIRTUAL_THREADS ? "virtual threads" : "platform threads");
+            server.serve();
+        }
+    }
+
+    int port() {
+        return socket.getLocalPort();
+    }
+
+    // Accepts connections until the server is closed
+    void serve() throws IOException {
+        while(!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch(SocketException e) {
+                if(socket.isClosed()) return;
+                throw e;
+            }
+            client.setTcpNoDelay(true);
+            connections.execute(new Connection(nextConnection.incrementAndGet(), client));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connections.shutdownNow();
+    }
+
+    int sessions() {
+        int n = 0;
+        for(SessionStore s : stores) n += s.live();
+        return n;
+    }
+
+    private long storeBytes() {
+        long n = 0;
+        for(SessionStore s : stores) n += s.bytes();
+        return n;
+    }
+
+    // One thread per task: virtual threads when the runtime has them (JDK 21+; looked up
+    // reflectively since the build targets 17), otherwise daemon platform threads with 256 KiB
+    // stacks so thousands of connections stay affordable
+    static ExecutorService connectionExecutor() {
+        if(NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch(ReflectiveOperationException e) {
+                System.err.println("Virtual threads unavailable: " + e);
+            }
+        }
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(null, r, "connection-" + n.incrementAndGet(), 256 * 1024);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // One client: parses requests, runs them on its own engines, ends its sessions on disconnect
+    private final class Connection implements Runnable {
+        private final int id;
+        private final Socket client;
+        private final GameEngine[] engines = new GameEngine[SIZES];
+        private final byte[][] cells = new byte[SIZES][];
+        private final StringBuilder reply = new StringBuilder(256);
+        private int[] owned = new int[16];   // live session ids
+        private int ownedCount;
+
+        Connection(int id, Socket client) {
+            this.id = id;
+            this.client = client;
+        }
+
+        @Override
+        public void run() {
+            liveConnections.incrementAndGet();
+            try(Socket s = client;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII), 8192);
+                Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII), 8192)) {
+                String line;
+                while((line = in.readLine()) != null) {
+                    reply.setLength(0);
+                    boolean quit = handle(line.trim());
+                    out.append(reply).append('\n');
+                    if(quit) break;
+                    if(!in.ready()) out.flush();
+                }
+                out.flush();
+            } catch(IOException e) {
+                // client went away; its sessions are dropped below
+            } finally {
+                for(int i = 0; i < ownedCount; i++) end(owned[i]);
+                liveConnections.decrementAndGet();
+            }
+        }
+
+        // Fills `reply`; true on QUIT
+        private boolean handle(String line) {
+            String[] args = line.split(" +");
+            try {
+                switch(args[0].toUpperCase()) {
+                    case "NEW":
+                        create(args.length > 1 ? Integer.parseInt(args[1]) : 4,
+                                args.length > 2 ? Long.parseLong(args[2]) : ThreadLocalRandom.current().nextLong());
+                        break;
+                    case "MOVE":
+                        if(args.length != 3) throw new IllegalArgumentException("usage: MOVE id dirs");
+                        move(Integer.parseInt(args[1]), args[2]);
+                        break;
+                    case "GET":
+                        if(args.length != 2) throw new IllegalArgumentException("usage: GET id");
+                        int session = Integer.parseInt(args[1]);
+                        state(session, engine(session));
+                        break;
+                    case "END":
+                        if(args.length != 2) throw new IllegalArgumentException("usage: END id");
+                        int ended = Integer.parseInt(args[1]);
+                        if(!owns(ended)) throw new IllegalArgumentException("no session " + ended);
+                        end(ended);
+                        for(int i = ownedCount - 1; i >= 0; i--) {
+                            if(owned[i] == ended) {
+                                owned[i] = owned[--ownedCount];
+                                break;
+                            }
+                        }
+                        reply.append("OK ").append(ended);
+                        break;
+                    case "STATS":
+                        stats(args.length > 1 && args[1].equalsIgnoreCase("gc"));
+                        break;
+                    case "QUIT":
+                        reply.append("OK");
+                        return true;
+                    default:
+                        throw new IllegalArgumentException("unknown request " + args[0]);
+                }
+            } catch(IllegalArgumentException e) {   // includes NumberFormatException
+                reply.setLength(0);
+                reply.append("ERR ").append(e.getMessage());
+            }
+            return false;
+        }
+
+        private void create(int size, long seed) {
+            if(size < GameEngine.MIN_SIZE || size > GameEngine.MAX_SIZE) throw new IllegalArgumentException("unsupported size " + size);
+            if(sessions() >= maxSessions) throw new IllegalArgumentException("session limit reached");
+            GameEngine engine = engineFor(size);
+            engine.reset(seed);
+            SessionStore store = stores[size - GameEngine.MIN_SIZE];
+            int session = store.create(id, engine) * SIZES + size - GameEngine.MIN_SIZE;
+            if(ownedCount == owned.length) owned = Arrays.copyOf(owned, owned.length * 2);
+            owned[ownedCount++] = session;
+            state(session, engine);
+        }
+
+        // Server-side latency covers parsing the batch through writing the session back
+        private void move(int session, String dirs) {
+            long start = System.nanoTime();
+            if(dirs.length() > MAX_BATCH) throw new IllegalArgumentException("more than " + MAX_BATCH + " moves");
+            GameEngine engine = engine(session);
+            int applied = 0;
+            boolean won = false;
+            for(int i = 0; i < dirs.length() && !engine.isGameOver(); i++) {
+                if(!engine.move(direction(dirs.charAt(i)))) continue;
+                engine.addNewTile();
+                won |= engine.isWinReached();
+                applied++;
+            }
+            store(session).save(session / SIZES, engine, applied, won);
+            latency.record(System.nanoTime() - start);
+            state(session, engine);
+        }
+
+        private void end(int session) {
+            if(owns(session)) store(session).remove(session / SIZES);
+        }
+
+        private boolean owns(int session) {
+            return session >= 0 && store(session).owner(session / SIZES) == id;
+        }
+
+        // Loads an owned session into this connection's engine for its size
+        private GameEngine engine(int session) {
+            if(!owns(session)) throw new IllegalArgumentException("no session " + session);
+            GameEngine engine = engineFor(store(session).size);
+            store(session).load(session / SIZES, engine);
+            return engine;
+        }
+
+        private GameEngine engineFor(int size) {
+            int i = size - GameEngine.MIN_SIZE;
+            if(engines[i] == null) {
+                engines[i] = new GameEngine(size, 0);
+                cells[i] = new byte[size * size];
+            }
+            return engines[i];
+        }
+
+        private SessionStore store(int session) {
+            return stores[session % SIZES];
+        }
+
+        private void state(int session, GameEngine engine) {
+            SessionStore store = store(session);
+            reply.append("OK ").append(session).append(' ').append(store.moves(session / SIZES))
+                    .append(' ').append(engine.getScore()).append(' ').append(engine.legalMoves())
+                    .append(' ').append(store.won(session / SIZES) ? 1 : 0).append(' ');
+            byte[] c = cells[store.size - GameEngine.MIN_SIZE];
+            engine.copyExponents(c);
+            for(int i = 0; i < c.length; i++) {
+                if(i > 0) reply.append(',');
+                reply.append(c[i]);
+            }
+        }
+
+        private void stats(boolean gc) {
+            if(gc) System.gc();
+            Runtime rt = Runtime.getRuntime();
+            reply.append("OK sessions=").append(sessions())
+                    .append(" connections=").append(liveConnections.get())
+                    .append(" storeBytes=").append(storeBytes())
+                    .append(" heapUsed=").append(rt.totalMemory() - rt.freeMemory())
+                    .append(" requests=").append(latency.count())
+                    .append(" p50us=").append(latency.percentile(0.50) / 1000)
+                    .append(" p99us=").append(latency.percentile(0.99) / 1000)
+                    .append(" maxus=").append(latency.max() / 1000);
+        }
+    }
+
+    static int direction(char c) {
+        switch(c) {
+            case 'U': case 'u': return BitBoard.UP;
+            case 'D': case 'd': return BitBoard.DOWN;
+            case 'L': case 'l': return BitBoard.LEFT;
+            case 'R': case 'r': return BitBoard.RIGHT;
+            default: throw new IllegalArgumentException("bad direction " + c);
+        }
+    }
+}
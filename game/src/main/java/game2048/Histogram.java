@@ -0,0 +1,83 @@
+package game2048;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram of non-negative values (nanoseconds for timings, bytes for
+// sizes). Each power of two is split into 8 buckets, so percentiles are within 12.5%;
+// record() is one atomic increment on a bucket plus adder updates, safe from any thread.
+final class Histogram {
+    private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+
+    final String name, description;
+    private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+    private final LongAdder count = new LongAdder(), sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    void record(long value) {
+        if(value < 0) value = 0;
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long m = max.get();
+        while(value > m && !max.compareAndSet(m, value)) m = max.get();
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Value at quantile q (0..1), reported as the top of its bucket and never above the max
+    long percentile(double q) {
+        long n = count.sum();
+        if(n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(q * n)), seen = 0;
+        for(int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if(seen >= target) return Math.min(max.get(), lowerBound(i + 1) - 1);
+        }
+        return max.get();
+    }
+
+    // "n=.. p50=.. p99=.. max=.." with values scaled by `unit` (e.g. 1e3 for microseconds)
+    String summary(double unit, String suffix) {
+        long n = count();
+        if(n == 0) return "n=0";
+        return String.format("n=%d p50=%.1f%s p99=%.1f%s max=%.1f%s", n,
+                percentile(0.50) / unit, suffix, percentile(0.99) / unit, suffix, max() / unit, suffix);
+    }
+
+    // Timings in milliseconds
+    String summary() {
+        return summary(1e6, "ms");
+    }
+
+    static int index(long value) {
+        if(value < SUB) return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long lowerBound(int index) {
+        if(index < SUB) return index;
+        int exp = index / SUB + SUB_BITS - 1;
+        if(exp > 62) return Long.MAX_VALUE;
+        return (long) (SUB + index % SUB) << (exp - SUB_BITS);
+    }
+}
@@ -0,0 +1,113 @@
+package game2048;
+
+// Moves typed by the player, decoupled from the EDT: key handlers only timestamp the direction
+// and put it on a bounded queue, and a dedicated game-logic thread applies the moves in order.
+// Every input gets a sequence number. The UI reports which input the frame it just put on
+// screen reflects, and the time from key press to that point is the input-to-photon latency.
+// Inputs applied but never shown on their own (the UI skipped their frame) are timed when a
+// later frame shows them, so every accepted keystroke is accounted for. Inputs lost to a full
+// queue or cancelled by undo/restart are counted in the input.dropped and input.cancelled gauges.
+final class InputPipeline {
+    // Runs on the logic thread; true if the move changed the board
+    interface Handler {
+        boolean apply(int dir, long seq);
+    }
+
+    private static final int HISTORY = 1024;   // power of two; inputs awaiting display
+
+    private final Handler handler;
+    private final int[] queueDirs;
+    private final long[] queueSeqs;
+    private final long[] inputNanos = new long[HISTORY];   // by seq; 0 = not applied
+    private final Thread thread;
+    private int head, count;
+    private long nextSeq = 1, lastDisplayed;
+    private volatile boolean running = true;
+
+    private long dropped, cancelled;
+    private final Histogram latency = Metrics.INPUT_LATENCY;
+
+    InputPipeline(int capacity, Handler handler) {
+        this.handler = handler;
+        queueDirs = new int[capacity];
+        queueSeqs = new long[capacity];
+        thread = new Thread(this::run, "game-logic");
+        thread.setDaemon(true);
+        thread.start();
+        Metrics.gauge("input.dropped", this::dropped);
+        Metrics.gauge("input.cancelled", this::cancelled);
+    }
+
+    // Called on the EDT; never blocks. False if the queue was full and the input dropped.
+    synchronized boolean submit(int dir) {
+        if(count == queueDirs.length) {
+            dropped++;
+            return false;
+        }
+        long seq = nextSeq++;
+        inputNanos[(int) (seq & (HISTORY - 1))] = System.nanoTime();
+        int tail = (head + count) % queueDirs.length;
+        queueDirs[tail] = dir;
+        queueSeqs[tail] = seq;
+        count++;
+        notifyAll();
+        return true;
+    }
+
+    // Forgets queued moves that have not been applied yet (undo, restart)
+    synchronized void clear() {
+        for(; count > 0; count--, head = (head + 1) % queueDirs.length) {
+            inputNanos[(int) (queueSeqs[head] & (HISTORY - 1))] = 0;
+            cancelled++;
+        }
+    }
+
+    // Called on the EDT once a frame showing every applied input up to `seq` has been painted
+    synchronized void displayed(long seq) {
+        long now = System.nanoTime();
+        for(long s = Math.max(lastDisplayed + 1, seq - HISTORY + 1); s <= seq; s++) {
+            int slot = (int) (s & (HISTORY - 1));
+            if(inputNanos[slot] != 0) latency.record(now - inputNanos[slot]);
+            inputNanos[slot] = 0;
+        }
+        lastDisplayed = Math.max(lastDisplayed, seq);
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    synchronized long dropped() {
+        return dropped;
+    }
+
+    synchronized long cancelled() {
+        return cancelled;
+    }
+
+    private void run() {
+        while(running) {
+            int dir;
+            long seq;
+            synchronized(this) {
+                while(count == 0) {
+                    try {
+                        wait();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                }
+                dir = queueDirs[head];
+                seq = queueSeqs[head];
+                head = (head + 1) % queueDirs.length;
+                count--;
+            }
+            if(!handler.apply(dir, seq)) {
+                synchronized(this) {
+                    inputNanos[(int) (seq & (HISTORY - 1))] = 0;   // a no-op move is never shown
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package game2048;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local load for GameServer: opens `connections` clients, each holding `sessions` 4x4 games,
+// and has every client cycle through its games sending MOVE requests of `batch` random
+// directions for `seconds`. Finished games are ended and replaced. Reports the heap the
+// sessions took (server-side, after a GC) as sessions per GB, and request latency both as
+// seen by the clients and as measured inside the server.
+//
+// Usage: java -cp game/target/classes game2048.LoadGenerator [connections] [sessions] [batch] [seconds] [port]
+// Without a port an in-process server is started on a free one.
+public class LoadGenerator {
+    private static final char[] DIRS = {'U', 'D', 'L', 'R'};
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        GameServer local = null;
+        int port;
+        if(args.length > 4) {
+            port = Integer.parseInt(args[4]);
+        } else {
+            local = new GameServer(0);
+            port = local.port();
+            GameServer server = local;
+            Thread t = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch(IOException e) {
+                    System.err.println("Server stopped: " + e.getMessage());
+                }
+            }, "game-server");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        try(Client control = new Client(port)) {
+            Map<String, Long> before = control.stats();
+            CountDownLatch ready = new CountDownLatch(connections), go = new CountDownLatch(1);
+            Histogram latency = new Histogram("client.request", "Client request round trip");
+            AtomicLong requests = new AtomicLong(), moves = new AtomicLong(), games = new AtomicLong(), failures = new AtomicLong();
+            long[] deadline = new long[1];
+            ExecutorService clients = GameServer.connectionExecutor();
+            for(int c = 0; c < connections; c++) {
+                clients.execute(() -> {
+                    try(Client client = new Client(port)) {
+                        int[] ids = new int[sessions];
+                        for(int i = 0; i < sessions; i++) ids[i] = client.newGame();
+                        ready.countDown();
+                        go.await();
+                        StringBuilder dirs = new StringBuilder(batch);
+                        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                        for(int i = 0; System.nanoTime() < deadline[0]; i = (i + 1) % sessions) {
+                            dirs.setLength(0);
+                            for(int k = 0; k < batch; k++) dirs.append(DIRS[rnd.nextInt(4)]);
+                            long start = System.nanoTime();
+                            String[] reply = client.request("MOVE " + ids[i] + " " + dirs);
+                            latency.record(System.nanoTime() - start);
+                            requests.incrementAndGet();
+                            moves.addAndGet(batch);
+                            if(reply[4].equals("0")) {
+                                client.request("END " + ids[i]);
+                                ids[i] = client.newGame();
+                                games.incrementAndGet();
+                            }
+                        }
+                    } catch(Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("Client failed: " + e);
+                        ready.countDown();
+                    }
+                });
+            }
+            ready.await();
+            Map<String, Long> loaded = control.stats();
+            long total = loaded.get("sessions") - before.get("sessions");
+            long heap = Math.max(1, loaded.get("heapUsed") - before.get("heapUsed"));
+            System.out.printf("%d connections x %d sessions = %d sessions%n", connections, sessions, total);
+            System.out.printf("Heap: %.1f MB for the sessions and their connections, %.0f sessions/GB%n",
+                    heap / 1e6, total * (double) (1L << 30) / heap);
+            System.out.printf("Session store: %.1f MB, %.0f sessions/GB%n", loaded.get("storeBytes") / 1e6,
+                    total * (double) (1L << 30) / Math.max(1, loaded.get("storeBytes")));
+
+            deadline[0] = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            long start = System.nanoTime();
+            go.countDown();
+            clients.shutdown();
+            clients.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            Map<String, Long> after = control.stats();
+            System.out.printf("%d requests of %d moves in %.1f s: %.0f requests/s, %.0f moves/s, %d games finished%n",
+                    requests.get(), batch, elapsed, requests.get() / elapsed, moves.get() / elapsed, games.get());
+            System.out.println("Client round trip " + latency.summary(1e3, "us"));
+            System.out.printf("Server request p50=%dus p99=%dus max=%dus%n", after.get("p50us"), after.get("p99us"), after.get("maxus"));
+            if(failures.get() > 0) System.out.println(failures.get() + " clients failed");
+        } finally {
+            if(local != null) local.close();
+        }
+    }
+
+    // Blocking line client
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        String[] request(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            String reply = in.readLine();
+            if(reply == null) throw new IOException("server closed the connection");
+            if(!reply.startsWith("OK")) throw new IOException(line + ": " + reply);
+            return reply.split(" ");
+        }
+
+        int newGame() throws IOException {
+            return Integer.parseInt(request("NEW")[1]);
+        }
+
+        // Server STATS after a GC, as numbers by key
+        Map<String, Long> stats() throws IOException {
+            Map<String, Long> values = new HashMap<>();
+            String[] reply = request("STATS gc");
+            for(int i = 1; i < reply.length; i++) {
+                int eq = reply[i].indexOf('=');
+                values.put(reply[i].substring(0, eq), Long.parseLong(reply[i].substring(eq + 1)));
+            }
+            return values;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package game2048;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.management.*;
+
+// Runtime performance metrics: named Histograms that any thread can record into, plus gauges
+// read on demand. The same numbers are shown by the in-game overlay (MetricsOverlay),
+// exposed over JMX as game2048:type=Metrics (attributes "<name>.p50", ".p99", ".max" in
+// microseconds, ".count"; gauges by name), and appended to a log file every few seconds.
+final class Metrics {
+    private static final List<Histogram> histograms = new CopyOnWriteArrayList<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService logger;
+
+    static final Histogram MOVE = histogram("move", "Engine move");
+    static final Histogram SPAWN = histogram("spawn", "addNewTile");
+    static final Histogram RENDER = histogram("render", "Board update on the EDT");
+    static final Histogram PAINT = histogram("paint", "Canvas paint");
+    static final Histogram FRAME_INTERVAL = histogram("frame.interval", "Frame interval");
+    static final Histogram EDT_DELAY = histogram("edt.delay", "EDT queue delay");
+    static final Histogram AUDIO_LATENCY = histogram("audio.latency", "Audio trigger latency");
+    static final Histogram INPUT_LATENCY = histogram("input.latency", "Input to photon");
+    static final Histogram OVERLAY = histogram("overlay.show", "Win/lose overlay shown");
+    static final Histogram SERVER_MOVE = histogram("server.move", "Server MOVE request");
+    static final Histogram ASSET_LOAD = histogram("asset.load", "Asset decode");
+
+    private Metrics() {}
+
+    private static Histogram histogram(String name, String description) {
+        Histogram h = new Histogram(name, description);
+        histograms.add(h);
+        return h;
+    }
+
+    static List<Histogram> histograms() {
+        return histograms;
+    }
+
+    // Registers (or replaces) a gauge such as a memory size
+    static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    static Map<String, Long> gaugeValues() {
+        Map<String, Long> values = new java.util.TreeMap<>();
+        gauges.forEach((name, g) -> values.put(name, g.getAsLong()));
+        return values;
+    }
+
+    // Registers the MBean and starts the periodic log (-Dmetrics.log, empty to disable;
+    // -Dmetrics.intervalSec); safe to call more than once
+    static synchronized void start() {
+        if(logger != null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName("game2048:type=Metrics"));
+        } catch(JMException e) {
+            System.err.println("Metrics MBean not registered: " + e.getMessage());
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-log");
+            t.setDaemon(true);
+            return t;
+        });
+        String file = System.getProperty("metrics.log", "metrics.log");
+        if(file.isEmpty()) return;
+        Path path = Path.of(file);
+        long interval = Long.getLong("metrics.intervalSec", 10);
+        logger.scheduleAtFixedRate(() -> append(path), interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> append(path), "metrics-log-final"));
+    }
+
+    // One line per metric, microseconds for timings
+    static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for(Histogram h : histograms) lines.add(String.format("%-15s %s", h.name, h.summary(1e3, "us")));
+        gaugeValues().forEach((name, v) -> lines.add(String.format("%-15s %d", name, v)));
+        return lines;
+    }
+
+    private static void append(Path path) {
+        StringBuilder sb = new StringBuilder(Instant.now().toString()).append('\n');
+        for(String line : report()) sb.append("  ").append(line).append('\n');
+        try {
+            Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch(IOException e) {
+            System.err.println("Could not write metrics log: " + e.getMessage());
+        }
+    }
+
+    // Read-only dynamic MBean over the histograms and gauges, so new metrics need no interface changes
+    private static final class MBean implements DynamicMBean {
+        private static final String[] STATS = {"count", "p50", "p99", "max"};
+
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongSupplier gauge = gauges.get(attribute);
+            if(gauge != null) return gauge.getAsLong();
+            int dot = attribute.lastIndexOf('.');
+            if(dot > 0) {
+                String name = attribute.substring(0, dot), stat = attribute.substring(dot + 1);
+                for(Histogram h : histograms) {
+                    if(!h.name.equals(name)) continue;
+                    switch(stat) {
+                        case "count": return h.count();
+                        case "p50": return h.percentile(0.50) / 1000;
+                        case "p99": return h.percentile(0.99) / 1000;
+                        case "max": return h.max() / 1000;
+                    }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for(String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch(AttributeNotFoundException ignored) {
+                    // left out, as the DynamicMBean contract allows
+                }
+            }
+            return list;
+        }
+
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only");
+        }
+
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for(Histogram h : histograms) {
+                for(String stat : STATS) {
+                    String unit = stat.equals("count") ? "" : " (us)";
+                    attrs.add(new MBeanAttributeInfo(h.name + "." + stat, "java.lang.Long",
+                            h.description + " " + stat + unit, true, false, false));
+                }
+            }
+            for(String name : gaugeValues().keySet()) {
+                attrs.add(new MBeanAttributeInfo(name, "java.lang.Long", name, true, false, false));
+            }
+            return new MBeanInfo(Metrics.class.getName(), "2048 performance metrics",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
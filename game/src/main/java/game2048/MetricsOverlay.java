@@ -0,0 +1,51 @@
+package game2048;
+
+import java.awt.*;
+import java.util.Map;
+import javax.swing.*;
+
+// Translucent HUD listing p50/p99/max of every Metrics histogram and the gauges. Meant to
+// be a window's glass pane; it refreshes itself four times a second while visible.
+class MetricsOverlay extends JComponent {
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.BOLD, 16);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private final Timer timer = new Timer(250, e -> repaint());
+
+    MetricsOverlay() {
+        setOpaque(false);
+        setVisible(false);
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if(visible) timer.start();
+        else timer.stop();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        int lineHeight = fm.getHeight();
+        int rows = Metrics.histograms().size() + Metrics.gaugeValues().size() + 1;
+        int x = 20, y = 20, width = fm.stringWidth("m") * 62, height = rows * lineHeight + 16;
+
+        g2.setColor(BACKGROUND);
+        g2.fillRoundRect(x, y, width, height, 12, 12);
+        g2.setColor(Color.WHITE);
+        int line = y + 8 + fm.getAscent();
+        g2.drawString(String.format("%-22s %9s %9s %9s %8s", "metric (us)", "p50", "p99", "max", "count"), x + 10, line);
+        for(Histogram h : Metrics.histograms()) {
+            line += lineHeight;
+            g2.drawString(String.format("%-22s %9.1f %9.1f %9.1f %8d", h.description,
+                    h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.max() / 1e3, h.count()), x + 10, line);
+        }
+        for(Map.Entry<String, Long> gauge : Metrics.gaugeValues().entrySet()) {
+            line += lineHeight;
+            g2.drawString(String.format("%-22s %9d", gauge.getKey(), gauge.getValue()), x + 10, line);
+        }
+    }
+}
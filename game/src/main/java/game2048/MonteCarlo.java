@@ -0,0 +1,200 @@
+package game2048;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+// Monte Carlo player: for every legal direction, plays many games out to the end from the
+// position after that move and picks the direction with the best mean final score. Rollouts
+// use GameEngine itself, so spawns and moves follow the real rules.
+// Each round is one fork-join task tree over (direction, rollout) pairs; leaves own their
+// engine and a SpawnRandom stream split off the round's seed, and hand back plain sums, so
+// workers share nothing mutable. Rounds double in size until the next one would overrun the
+// per-move time budget. Guided rollouts take the largest immediate merge when there is one
+// and a random legal move otherwise; unguided ones are purely random.
+//
+// Usage: java -cp game/target/classes game2048.MonteCarlo [max threads] [budget ms]
+// measures rollouts per second per core on 1, 2, 4, ... up to max threads.
+class MonteCarlo implements MovePolicy {
+    private static final int LEAF_ROLLOUTS = 8;
+    private static final int FIRST_ROUND = 16;   // rollouts per direction in the first round
+
+    private final ForkJoinPool pool;
+    private final long timeBudgetNanos;
+    private final boolean guided;
+    private final SpawnRandom seeds = new SpawnRandom.SplitMix();
+    private final LongAdder rollouts = new LongAdder(), rolloutMoves = new LongAdder(), searchNanos = new LongAdder();
+
+    MonteCarlo(ForkJoinPool pool, long timeBudgetMillis, boolean guided) {
+        this.pool = pool;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.guided = guided;
+        seeds.seed(System.nanoTime());
+    }
+
+    @Override
+    public int nextMove(long board, Random rnd) {
+        return bestMove(board);
+    }
+
+    // Best BitBoard direction for the position, or -1 if no move is legal
+    int bestMove(long board) {
+        int legal = BitBoard.legalMoves(board);
+        if(Integer.bitCount(legal) <= 1) return legal == 0 ? -1 : Integer.numberOfTrailingZeros(legal);
+        int[] dirs = new int[Integer.bitCount(legal)];
+        for(int i = 0; legal != 0; legal &= legal - 1) dirs[i++] = Integer.numberOfTrailingZeros(legal);
+
+        long start = System.nanoTime(), deadline = start + timeBudgetNanos;
+        long[] totals = new long[2 * dirs.length + 1];
+        for(int perDir = FIRST_ROUND; ; perDir *= 2) {
+            long roundStart = System.nanoTime();
+            long seed;
+            synchronized(seeds) {
+                seed = seeds.nextLong();
+            }
+            long[] round = pool.invoke(new Rollouts(board, dirs, perDir, seed, 0, dirs.length * perDir));
+            for(int i = 0; i < totals.length; i++) totals[i] += round[i];
+            long now = System.nanoTime();
+            // The next round is twice as long as this one
+            if(now + 2 * (now - roundStart) > deadline) break;
+        }
+        searchNanos.add(System.nanoTime() - start);
+
+        int best = dirs[0];
+        double bestMean = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < dirs.length; i++) {
+            double mean = (double) totals[2 * i] / totals[2 * i + 1];
+            if(mean > bestMean) {
+                bestMean = mean;
+                best = dirs[i];
+            }
+        }
+        rollouts.add(totalRollouts(totals));
+        rolloutMoves.add(totals[totals.length - 1]);
+        return best;
+    }
+
+    private static long totalRollouts(long[] totals) {
+        long n = 0;
+        for(int i = 1; i < totals.length - 1; i += 2) n += totals[i];
+        return n;
+    }
+
+    long rollouts() {
+        return rollouts.sum();
+    }
+
+    // "n rollouts, x rollouts/s/core, y moves per rollout" over every search so far
+    String summary() {
+        long n = rollouts.sum();
+        double seconds = searchNanos.sum() / 1e9;
+        if(n == 0 || seconds == 0) return "no rollouts";
+        return String.format("%d rollouts, %.0f rollouts/s/core, %.0f moves per rollout",
+                n, n / seconds / pool.getParallelism(), (double) rolloutMoves.sum() / n);
+    }
+
+    // Rollouts [from, to) of a round: rollout r belongs to direction dirs[r % dirs.length].
+    // Result: score sum and count per direction, then the total rollout moves.
+    private final class Rollouts extends RecursiveTask<long[]> {
+        private final long board, seed;
+        private final int[] dirs;
+        private final int perDir, from, to;
+
+        Rollouts(long board, int[] dirs, int perDir, long seed, int from, int to) {
+            this.board = board;
+            this.dirs = dirs;
+            this.perDir = perDir;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if(to - from > LEAF_ROLLOUTS * dirs.length) {
+                int mid = (from + to) >>> 1;
+                Rollouts right = new Rollouts(board, dirs, perDir, seed, mid, to);
+                right.fork();
+                long[] result = new Rollouts(board, dirs, perDir, seed, from, mid).compute();
+                long[] other = right.join();
+                for(int i = 0; i < result.length; i++) result[i] += other[i];
+                return result;
+            }
+            SpawnRandom root = new SpawnRandom.SplitMix();
+            root.seed(seed);
+            SpawnRandom rng = root.split(from);
+            GameEngine engine = new GameEngine(4, 0, rng, GameEngine.FOUR_PERCENT);
+            long[] result = new long[2 * dirs.length + 1];
+            for(int r = from; r < to; r++) {
+                int d = r % dirs.length;
+                engine.restore(board, 0);
+                engine.move(dirs[d]);
+                engine.addNewTile();
+                result[result.length - 1] += playOut(engine, rng);
+                result[2 * d] += engine.getScore();
+                result[2 * d + 1]++;
+            }
+            return result;
+        }
+    }
+
+    // Plays to the end of the game; returns the number of moves
+    private long playOut(GameEngine engine, SpawnRandom rng) {
+        long moves = 0;
+        for(int legal = engine.legalMoves(); legal != 0; legal = engine.legalMoves()) {
+            int dir = -1;
+            if(guided) {
+                long board = engine.getBoard();
+                int bestScore = 0;
+                for(int l = legal; l != 0; l &= l - 1) {
+                    int d = Integer.numberOfTrailingZeros(l);
+                    int s = BitBoard.moveInfo(board, d) & BitBoard.SCORE_MASK;
+                    if(s > bestScore) {
+                        bestScore = s;
+                        dir = d;
+                    }
+                }
+            }
+            if(dir < 0) {
+                for(int k = rng.nextInt(Integer.bitCount(legal)); k > 0; k--) legal &= legal - 1;
+                dir = Integer.numberOfTrailingZeros(legal);
+            }
+            engine.move(dir);
+            engine.addNewTile();
+            moves++;
+        }
+        return moves;
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        long[] positions = midgamePositions(32);
+        new MonteCarlo(ForkJoinPool.commonPool(), budget, true).bestMove(positions[0]);   // warm-up
+        for(int threads = 1; ; threads = Math.min(maxThreads, threads * 2)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            MonteCarlo mc = new MonteCarlo(pool, budget, true);
+            for(long board : positions) mc.bestMove(board);
+            System.out.printf("%3d threads: %s%n", threads, mc.summary());
+            pool.shutdown();
+            if(threads == maxThreads) break;
+        }
+    }
+
+    // Positions 100 moves into corner-policy games
+    private static long[] midgamePositions(int n) {
+        MovePolicy corner = MovePolicy.corner();
+        long[] positions = new long[n];
+        for(int i = 0; i < n; i++) {
+            GameEngine engine = new GameEngine(i);
+            engine.reset();
+            for(int m = 0; m < 100 && !engine.isGameOver(); m++) {
+                engine.move(corner.nextMove(engine.getBoard(), null));
+                engine.addNewTile();
+            }
+            positions[i] = engine.getBoard();
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,66 @@
+package game2048;
+
+import java.util.Random;
+
+// Chooses the next direction for a headless player.
+// Only asked while at least one move is legal; must return a legal BitBoard direction.
+@FunctionalInterface
+interface MovePolicy {
+    int nextMove(long board, Random rnd);
+
+    // Uniformly random legal move
+    static MovePolicy random() {
+        return (board, rnd) -> {
+            int legal = BitBoard.legalMoves(board);
+            for(int k = rnd.nextInt(Integer.bitCount(legal)); k > 0; k--) legal &= legal - 1;
+            return Integer.numberOfTrailingZeros(legal);
+        };
+    }
+
+    // Takes the move with the largest immediate score, ties broken by direction order
+    static MovePolicy greedy() {
+        return (board, rnd) -> {
+            int best = -1, bestScore = -1;
+            for(int legal = BitBoard.legalMoves(board); legal != 0; legal &= legal - 1) {
+                int dir = Integer.numberOfTrailingZeros(legal);
+                int s = BitBoard.moveInfo(board, dir) & BitBoard.SCORE_MASK;
+                if(s > bestScore) {
+                    bestScore = s;
+                    best = dir;
+                }
+            }
+            return best;
+        };
+    }
+
+    // Keeps tiles packed into the bottom-left corner: Down, Left, Right, then Up
+    static MovePolicy corner() {
+        int[] order = {BitBoard.DOWN, BitBoard.LEFT, BitBoard.RIGHT, BitBoard.UP};
+        return (board, rnd) -> {
+            int legal = BitBoard.legalMoves(board);
+            for(int dir : order) if((legal & 1 << dir) != 0) return dir;
+            return -1;
+        };
+    }
+
+    // Greedy on the trained n-tuple network in NTupleNetwork.defaultFile()
+    static MovePolicy ntuple() {
+        try {
+            return NTupleNetwork.open(NTupleNetwork.defaultFile(), false);
+        } catch(java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    static MovePolicy byName(String name) {
+        switch(name.toLowerCase()) {
+            case "random": return random();
+            case "greedy": return greedy();
+            case "corner": return corner();
+            case "expectimax": return new Expectimax(3, 50, new TranspositionTable(20, true));
+            case "ntuple": return ntuple();
+            case "montecarlo": return new MonteCarlo(java.util.concurrent.ForkJoinPool.commonPool(), 20, true);
+            default: throw new IllegalArgumentException("Unknown policy: " + name);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package game2048;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// n-tuple network evaluator for 4x4 afterstates (the board after a move, before the spawn),
+// trained by NTupleTrainer. Four 6-cell tuples, each applied under the 8 symmetries of the
+// board, index tables of 16^6 floats: the value of a board is the sum of 32 table entries and
+// estimates the score still to come. The tables are the weight file itself, memory-mapped, so
+// nothing is copied onto the heap: opening a trained network is instant and pages are read in
+// as positions touch them.
+//
+// Weight file: a HEADER-byte page (long MAGIC, int tuple count, int tuple length, long games
+// trained, then the tuple cells) followed by the tables, native float order.
+//
+// Updates are plain unsynchronized read-add-writes on the mapping, Hogwild style: trainer
+// threads share the tables and an occasional lost update only adds a little noise.
+final class NTupleNetwork implements MovePolicy {
+    private static final long MAGIC = 0x3150544E38343032L;   // "2048NTP1"
+    private static final int HEADER = 4096;
+    private static final int GAMES_OFFSET = 16;
+    private static final int TUPLE_LENGTH = 6, TABLE_SIZE = 1 << (4 * TUPLE_LENGTH);
+
+    // Cells (row * 4 + col) of the base tuples: two straight and two rectangular shapes
+    private static final int[][] TUPLES = {
+        {0, 1, 2, 3, 4, 5}, {4, 5, 6, 7, 8, 9}, {0, 1, 2, 4, 5, 6}, {4, 5, 6, 8, 9, 10}
+    };
+    private static final int FEATURES = TUPLES.length * 8;
+
+    // Nibble shifts of every tuple under every symmetry: [tuple * 8 + symmetry][cell]
+    private static final int[][] SHIFTS = new int[FEATURES][TUPLE_LENGTH];
+
+    static {
+        for(int t = 0; t < TUPLES.length; t++) {
+            for(int s = 0; s < 8; s++) {
+                for(int k = 0; k < TUPLE_LENGTH; k++) {
+                    int r = TUPLES[t][k] / 4, c = TUPLES[t][k] % 4;
+                    if((s & 4) != 0) {
+                        int tmp = r;
+                        r = c;
+                        c = tmp;
+                    }
+                    if((s & 1) != 0) c = 3 - c;
+                    if((s & 2) != 0) r = 3 - r;
+                    SHIFTS[t * 8 + s][k] = 16 * r + 4 * c;
+                }
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] mapped = new MappedByteBuffer[TUPLES.length];
+    private final FloatBuffer[] tables = new FloatBuffer[TUPLES.length];
+
+    private NTupleNetwork(FileChannel channel, boolean writable) throws IOException {
+        this.channel = channel;
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        long length = HEADER + (long) TUPLES.length * TABLE_SIZE * 4;
+        if(!writable && channel.size() < length) throw new IOException("Weight file is truncated");
+        header = channel.map(mode, 0, HEADER);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if(header.getLong(0) == 0 && writable) {
+            header.putInt(8, TUPLES.length);
+            header.putInt(12, TUPLE_LENGTH);
+            for(int t = 0; t < TUPLES.length; t++) {
+                for(int k = 0; k < TUPLE_LENGTH; k++) header.put(24 + t * TUPLE_LENGTH + k, (byte) TUPLES[t][k]);
+            }
+            header.putLong(0, MAGIC);
+        }
+        if(header.getLong(0) != MAGIC) throw new IOException("Not an n-tuple weight file");
+        for(int t = 0; t < TUPLES.length; t++) {
+            for(int k = 0; k < TUPLE_LENGTH; k++) {
+                if(header.get(24 + t * TUPLE_LENGTH + k) != TUPLES[t][k]) throw new IOException("Weight file has different tuples");
+            }
+        }
+        for(int t = 0; t < TUPLES.length; t++) {
+            mapped[t] = channel.map(mode, HEADER + (long) t * TABLE_SIZE * 4, (long) TABLE_SIZE * 4);
+            tables[t] = mapped[t].order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+    }
+
+    // The weight file, ntuple.weights in the working directory unless -Dntuple.file says otherwise
+    static Path defaultFile() {
+        return Path.of(System.getProperty("ntuple.file", "ntuple.weights"));
+    }
+
+    // Maps the weight file; a writable network creates it (all weights zero) if needed
+    static NTupleNetwork open(Path file, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new NTupleNetwork(channel, writable);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Read-only network for hints, or null (after printing why) if there is no usable weight file
+    static NTupleNetwork openOrNull(Path file) {
+        if(!Files.exists(file)) return null;
+        try {
+            return open(file, false);
+        } catch(IOException e) {
+            System.err.println("n-tuple weights not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Expected score still to come from this afterstate
+    double evaluate(long board) {
+        float value = 0;
+        for(int f = 0; f < FEATURES; f++) value += tables[f >>> 3].get(index(board, SHIFTS[f]));
+        return value;
+    }
+
+    // Moves the value of the afterstate by `delta`, spread evenly over its features
+    void update(long board, double delta) {
+        float step = (float) (delta / FEATURES);
+        for(int f = 0; f < FEATURES; f++) {
+            FloatBuffer table = tables[f >>> 3];
+            int i = index(board, SHIFTS[f]);
+            table.put(i, table.get(i) + step);
+        }
+    }
+
+    private static int index(long board, int[] shifts) {
+        int index = 0;
+        for(int k = 0; k < TUPLE_LENGTH; k++) index |= (int) ((board >>> shifts[k]) & 0xF) << (4 * k);
+        return index;
+    }
+
+    // Legal direction with the best immediate score plus afterstate value, or -1
+    int bestMove(long board) {
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(int legal = BitBoard.legalMoves(board); legal != 0; legal &= legal - 1) {
+            int dir = Integer.numberOfTrailingZeros(legal);
+            double value = (BitBoard.moveInfo(board, dir) & BitBoard.SCORE_MASK) + evaluate(BitBoard.move(board, dir));
+            if(value > bestValue) {
+                bestValue = value;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int nextMove(long board, Random rnd) {
+        return bestMove(board);
+    }
+
+    long gamesTrained() {
+        return header.getLong(GAMES_OFFSET);
+    }
+
+    // Adds to the trained-games count and writes dirty pages back; training threads keep
+    // updating the tables meanwhile, so a checkpoint is a recent state rather than an exact one
+    synchronized void checkpoint(long games) {
+        header.putLong(GAMES_OFFSET, gamesTrained() + games);
+        for(MappedByteBuffer m : mapped) m.force();
+        header.force();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch(IOException e) {
+            System.err.println("Could not close weight file: " + e.getMessage());
+        }
+    }
+}
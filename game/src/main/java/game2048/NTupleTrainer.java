@@ -0,0 +1,131 @@
+package game2048;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// TD(0) self-play training of an NTupleNetwork on afterstates. Every thread plays its own
+// GameEngine games (spawns from its own split SpawnRandom stream) greedily on the current
+// network and after each move nudges the previous afterstate's value towards the reward plus
+// the new afterstate's value. All threads update the shared mapped tables without locks.
+// The weight file is flushed every -Dntuple.checkpointSec seconds while training continues,
+// and training resumes from whatever the file holds.
+//
+// Usage: java -cp game/target/classes game2048.NTupleTrainer [minutes] [threads] [weight file]
+//   -Dntuple.alpha sets the learning rate (default 0.1)
+public class NTupleTrainer {
+    public static void main(String[] args) throws Exception {
+        double minutes = args.length > 0 ? Double.parseDouble(args[0]) : 60;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Path file = args.length > 2 ? Path.of(args[2]) : NTupleNetwork.defaultFile();
+        double alpha = Double.parseDouble(System.getProperty("ntuple.alpha", "0.1"));
+        long checkpointSec = Long.getLong("ntuple.checkpointSec", 60);
+
+        NTupleNetwork network = NTupleNetwork.open(file, true);
+        System.out.printf("Training %s (%d games so far) on %d threads for %.1f min%n",
+                file, network.gamesTrained(), threads, minutes);
+
+        Window window = new Window();
+        long deadline = System.nanoTime() + (long) (minutes * 60e9);
+        SpawnRandom root = new SpawnRandom.SplitMix();
+        root.seed(System.nanoTime());
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++) {
+            SpawnRandom stream = root.split(t);
+            workers[t] = new Thread(() -> {
+                GameEngine engine = new GameEngine(4, stream.nextLong(), stream, GameEngine.FOUR_PERCENT);
+                while(System.nanoTime() < deadline) window.add(playGame(network, engine, alpha));
+            }, "ntuple-" + t);
+            workers[t].start();
+        }
+
+        ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ntuple-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] checkpointed = new long[1];
+        background.scheduleAtFixedRate(() -> {
+            long games = window.totalGames();
+            network.checkpoint(games - checkpointed[0]);
+            checkpointed[0] = games;
+        }, checkpointSec, checkpointSec, TimeUnit.SECONDS);
+        background.scheduleAtFixedRate(window::report, 10, 10, TimeUnit.SECONDS);
+
+        for(Thread w : workers) w.join();
+        background.shutdown();
+        background.awaitTermination(1, TimeUnit.MINUTES);
+        window.report();
+        network.checkpoint(window.totalGames() - checkpointed[0]);
+        System.out.printf("%d games trained in total%n", network.gamesTrained());
+        network.close();
+    }
+
+    // Plays one game, learning as it goes; returns score | maxExponent << 48
+    static long playGame(NTupleNetwork network, GameEngine engine, double alpha) {
+        engine.reset();
+        boolean first = true;
+        long previous = 0;    // afterstate of the previous move and its value
+        double previousValue = 0;
+        while(true) {
+            long board = engine.getBoard();
+            int best = -1, bestReward = 0;
+            long bestAfter = 0;
+            double bestValue = Double.NEGATIVE_INFINITY, bestAfterValue = 0;
+            for(int legal = engine.legalMoves(); legal != 0; legal &= legal - 1) {
+                int dir = Integer.numberOfTrailingZeros(legal);
+                int reward = BitBoard.moveInfo(board, dir) & BitBoard.SCORE_MASK;
+                long after = BitBoard.move(board, dir);
+                double afterValue = network.evaluate(after);
+                if(reward + afterValue > bestValue) {
+                    bestValue = reward + afterValue;
+                    best = dir;
+                    bestReward = reward;
+                    bestAfter = after;
+                    bestAfterValue = afterValue;
+                }
+            }
+            if(best < 0) {
+                if(!first) network.update(previous, alpha * -previousValue);
+                break;
+            }
+            if(!first) network.update(previous, alpha * (bestReward + bestAfterValue - previousValue));
+            engine.move(best);
+            engine.addNewTile();
+            first = false;
+            previous = bestAfter;
+            previousValue = bestAfterValue;
+        }
+        int maxExponent = Integer.numberOfTrailingZeros(BitBoard.maxTile(engine.getBoard()));
+        return engine.getScore() | (long) maxExponent << 48;
+    }
+
+    // Progress since the last report, plus the running total
+    private static final class Window {
+        private final LongAdder games = new LongAdder(), score = new LongAdder(), won = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private long lastReport = System.nanoTime();
+
+        void add(long result) {
+            games.increment();
+            total.increment();
+            score.add(result & ((1L << 48) - 1));
+            if((result >>> 48) >= BitBoard.WIN_EXPONENT) won.increment();
+        }
+
+        long totalGames() {
+            return total.sum();
+        }
+
+        synchronized void report() {
+            long now = System.nanoTime(), n = games.sumThenReset();
+            double seconds = (now - lastReport) / 1e9;
+            lastReport = now;
+            if(n == 0) return;
+            System.out.printf("%,d games: %.0f games/s, mean score %.0f, 2048 reached in %.1f%%%n",
+                    total.sum(), n / seconds, (double) score.sumThenReset() / n, 100.0 * won.sumThenReset() / n);
+        }
+    }
+}
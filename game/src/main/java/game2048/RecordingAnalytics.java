@@ -0,0 +1,305 @@
+package game2048;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Aggregates over any number of GameRecorder logs, however large: max-tile distribution, the
+// move numbers games die at, direction use and how often the largest tile sits in a corner.
+// Each log is cut into ranges of whole games of at most CHUNK bytes; a parallel stream maps
+// one range at a time, replays its games from the recorded moves and spawns (no generator
+// needed, so version 1 games count too) into a per-thread Summary, and the partial Summaries
+// are merged at the end. Memory stays flat: a range list of a few bytes per CHUNK, one mapped
+// range per worker and fixed-size counters.
+// The result goes to a small checksummed summary file (-Danalytics.file, default
+// games.summary) that the entry screen shows without reading the logs again.
+//
+// Usage: java -cp game/target/classes game2048.RecordingAnalytics [log ...]   (default games.rec)
+public class RecordingAnalytics {
+    static final int CHUNK = 16 << 20;
+
+    public static void main(String[] args) throws Exception {
+        List<Path> logs = new ArrayList<>();
+        for(String a : args) logs.add(Path.of(a));
+        if(logs.isEmpty()) logs.add(GameRecorder.defaultFile());
+
+        long start = System.nanoTime();
+        Summary summary = analyse(logs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for(String line : summary.describe()) System.out.println(line);
+        System.out.printf("%,d games, %,d moves in %.2f s (%.0f games/s, %.0f moves/s)%n", summary.games, summary.moves,
+                seconds, summary.games / seconds, summary.moves / seconds);
+        summary.write(Summary.defaultFile());
+        System.out.println("Summary written to " + Summary.defaultFile());
+    }
+
+    static Summary analyse(List<Path> logs) throws IOException {
+        List<FileChannel> channels = new ArrayList<>();
+        try {
+            List<Range> ranges = new ArrayList<>();
+            for(Path log : logs) {
+                FileChannel ch = FileChannel.open(log, StandardOpenOption.READ);
+                channels.add(ch);
+                ranges(log, ch, ranges);
+            }
+            return ranges.parallelStream().collect(Summary::new, Summary::add, Summary::merge);
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for(FileChannel ch : channels) ch.close();
+        }
+    }
+
+    // Whole games [start, end) of one log
+    private static final class Range {
+        final FileChannel channel;
+        final long start, end;
+
+        Range(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // Appends the log's games as ranges of at most CHUNK bytes, walking game headers one
+    // mapped window at a time
+    private static void ranges(Path log, FileChannel ch, List<Range> ranges) throws IOException {
+        if(ch.size() < GameRecording.FILE_HEADER) return;
+        ByteBuffer header = ByteBuffer.allocate(GameRecording.FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        ch.read(header, 0);
+        if(header.getLong(0) != GameRecording.MAGIC) throw new IOException("Not a game log: " + log);
+        long end = Math.min(header.getLong(8), ch.size());
+        long pos = GameRecording.FILE_HEADER;
+        while(pos < end) {
+            int window = (int) Math.min(CHUNK, end - pos);
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, pos, window);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            int used = 0;
+            for(int length; (length = GameRecording.lengthAt(map, used, window)) > 0; ) used += length;
+            if(used == 0) {
+                if(window == end - pos) break;   // the rest is a partly written game
+                throw new IOException(log + ": no complete game at byte " + pos);
+            }
+            ranges.add(new Range(ch, pos, pos + used));
+            pos += used;
+        }
+    }
+
+    // Everything measured, mergeable; also the summary file's contents
+    static final class Summary {
+        private static final long MAGIC = 0x3155534538343032L;   // "2048SUM1"
+        static final int DEATH_BUCKET = 25, DEATH_BUCKETS = 400;   // moves per bucket; the last is open-ended
+
+        long games, finished, won, lost, moves, totalScore, bestScore;
+        long positions, cornerPositions, cornerFinishes;
+        final long[] sizes = new long[GameEngine.MAX_SIZE + 1];
+        final long[] maxTiles = new long[32];               // games by largest exponent reached
+        final long[] deaths = new long[DEATH_BUCKETS];      // lost games by move count / DEATH_BUCKET
+        final long[] directions = new long[4];              // moves by BitBoard direction
+        long analysedMillis;
+
+        // Scratch board for games other than 4x4
+        private final byte[] cells = new byte[GameEngine.MAX_SIZE * GameEngine.MAX_SIZE];
+
+        // The summary file, games.summary in the working directory unless -Danalytics.file says otherwise
+        static Path defaultFile() {
+            return Path.of(System.getProperty("analytics.file", "games.summary"));
+        }
+
+        void add(Range range) {
+            try {
+                MappedByteBuffer map = range.channel.map(FileChannel.MapMode.READ_ONLY, range.start, range.end - range.start);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                GameRecording.forEach(map, 0, map.capacity(), this::add);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void add(GameRecording game) {
+            games++;
+            sizes[game.size]++;
+            if(game.isFinished()) finished++;
+            if((game.flags & GameRecording.FLAG_WON) != 0) won++;
+            if((game.flags & GameRecording.FLAG_LOST) != 0) {
+                lost++;
+                deaths[Math.min(game.moves / DEATH_BUCKET, DEATH_BUCKETS - 1)]++;
+            }
+            moves += game.moves;
+            totalScore += game.score;
+            bestScore = Math.max(bestScore, game.score);
+            int maxExponent = game.size == 4 ? replayBitBoard(game) : replayCells(game);
+            maxTiles[Math.min(maxExponent, maxTiles.length - 1)]++;
+        }
+
+        // Replays a 4x4 game; returns its largest exponent
+        private int replayBitBoard(GameRecording game) {
+            long board = 0;
+            for(int i = 0; i < 2; i++) board |= (long) (game.start(i) & 0xFF) << (4 * (game.start(i) >>> 8));
+            boolean corner = false;
+            for(int i = 0; i < game.moves; i++) {
+                int dir = game.direction(i);
+                directions[dir]++;
+                board = BitBoard.move(board, dir);
+                board |= (long) game.spawnExponent(i) << (4 * game.spawnCell(i));
+                corner = largestInCorner(board);
+                if(corner) cornerPositions++;
+            }
+            positions += game.moves;
+            if(corner) cornerFinishes++;
+            return Integer.numberOfTrailingZeros(BitBoard.maxTile(board));
+        }
+
+        private static boolean largestInCorner(long board) {
+            int max = 0;
+            for(long b = board; b != 0; b >>>= 4) max = Math.max(max, (int) (b & 0xF));
+            return (board & 0xF) == max || (board >>> 12 & 0xF) == max || (board >>> 48 & 0xF) == max || board >>> 60 == max;
+        }
+
+        // Replays any other size in the scratch cells (ByteBoard only looks at the first size * size)
+        private int replayCells(GameRecording game) {
+            int size = game.size, n = size * size;
+            java.util.Arrays.fill(cells, 0, n, (byte) 0);
+            for(int i = 0; i < 2; i++) cells[game.start(i) >>> 8] = (byte) (game.start(i) & 0xFF);
+            boolean corner = false;
+            int max = 0;
+            for(int i = 0; i < game.moves; i++) {
+                int dir = game.direction(i);
+                directions[dir]++;
+                ByteBoard.move(cells, size, dir);
+                cells[game.spawnCell(i)] = (byte) game.spawnExponent(i);
+                max = 0;
+                for(int c = 0; c < n; c++) max = Math.max(max, cells[c]);
+                corner = cells[0] == max || cells[size - 1] == max || cells[n - size] == max || cells[n - 1] == max;
+                if(corner) cornerPositions++;
+            }
+            positions += game.moves;
+            if(corner) cornerFinishes++;
+            if(game.moves == 0) max = Math.max(cells[game.start(0) >>> 8], cells[game.start(1) >>> 8]);
+            return max;
+        }
+
+        void merge(Summary o) {
+            games += o.games;
+            finished += o.finished;
+            won += o.won;
+            lost += o.lost;
+            moves += o.moves;
+            totalScore += o.totalScore;
+            bestScore = Math.max(bestScore, o.bestScore);
+            positions += o.positions;
+            cornerPositions += o.cornerPositions;
+            cornerFinishes += o.cornerFinishes;
+            for(int i = 0; i < sizes.length; i++) sizes[i] += o.sizes[i];
+            for(int i = 0; i < maxTiles.length; i++) maxTiles[i] += o.maxTiles[i];
+            for(int i = 0; i < deaths.length; i++) deaths[i] += o.deaths[i];
+            for(int i = 0; i < directions.length; i++) directions[i] += o.directions[i];
+        }
+
+        // Human-readable report, one line per entry
+        List<String> describe() {
+            List<String> lines = new ArrayList<>();
+            if(games == 0) {
+                lines.add("No recorded games");
+                return lines;
+            }
+            lines.add(String.format("Games: %,d (%,d finished, %,d won, %,d lost)", games, finished, won, lost));
+            lines.add(String.format("Score: best %,d, average %,.0f; %,.0f moves per game", bestScore,
+                    (double) totalScore / games, (double) moves / games));
+            StringBuilder tiles = new StringBuilder("Largest tile:");
+            for(int e = maxTiles.length - 1, shown = 0; e > 0 && shown < 5; e--) {
+                if(maxTiles[e] == 0) continue;
+                tiles.append(String.format(" %s %.1f%%", ByteBoard.label(e), 100.0 * maxTiles[e] / games));
+                shown++;
+            }
+            lines.add(tiles.toString());
+            if(lost > 0) {
+                int peak = 0;
+                for(int i = 1; i < deaths.length; i++) if(deaths[i] > deaths[peak]) peak = i;
+                long early = 0;
+                for(int i = 0; i < 100 / DEATH_BUCKET; i++) early += deaths[i];
+                lines.add(String.format("Games mostly end around moves %d-%d; %.1f%% of losses come within 100 moves",
+                        peak * DEATH_BUCKET, (peak + 1) * DEATH_BUCKET - 1, 100.0 * early / lost));
+            }
+            if(positions > 0) {
+                lines.add(String.format("Largest tile in a corner: %.1f%% of positions, %.1f%% of final positions",
+                        100.0 * cornerPositions / positions, 100.0 * cornerFinishes / games));
+                lines.add(String.format("Moves: up %.0f%%, down %.0f%%, left %.0f%%, right %.0f%%",
+                        100.0 * directions[BitBoard.UP] / moves, 100.0 * directions[BitBoard.DOWN] / moves,
+                        100.0 * directions[BitBoard.LEFT] / moves, 100.0 * directions[BitBoard.RIGHT] / moves));
+            }
+            return lines;
+        }
+
+        // Writes magic, the counters and a CRC to a temporary file and renames it over `file`
+        void write(Path file) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeLong(MAGIC);
+                out.writeLong(System.currentTimeMillis());
+                for(long v : new long[] {games, finished, won, lost, moves, totalScore, bestScore,
+                        positions, cornerPositions, cornerFinishes}) out.writeLong(v);
+                for(long[] a : new long[][] {sizes, maxTiles, deaths, directions}) {
+                    out.writeInt(a.length);
+                    for(long v : a) out.writeLong(v);
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(bytes.toByteArray());
+                out.writeInt((int) crc.getValue());
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // The summary in `file`, or null (after printing why, unless there is no file) if it can't be read
+        static Summary readOrNull(Path file) {
+            if(!Files.exists(file)) return null;
+            try {
+                byte[] data = Files.readAllBytes(file);
+                CRC32C crc = new CRC32C();
+                crc.update(data, 0, Math.max(0, data.length - 4));
+                if(data.length < 4 || ByteBuffer.wrap(data, data.length - 4, 4).getInt() != (int) crc.getValue()) {
+                    throw new IOException("checksum mismatch");
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+                if(in.readLong() != MAGIC) throw new IOException("not a summary file");
+                Summary s = new Summary();
+                s.analysedMillis = in.readLong();
+                s.games = in.readLong();
+                s.finished = in.readLong();
+                s.won = in.readLong();
+                s.lost = in.readLong();
+                s.moves = in.readLong();
+                s.totalScore = in.readLong();
+                s.bestScore = in.readLong();
+                s.positions = in.readLong();
+                s.cornerPositions = in.readLong();
+                s.cornerFinishes = in.readLong();
+                for(long[] a : new long[][] {s.sizes, s.maxTiles, s.deaths, s.directions}) {
+                    if(in.readInt() != a.length) throw new IOException("written by a different version");
+                    for(int i = 0; i < a.length; i++) a[i] = in.readLong();
+                }
+                return s;
+            } catch(IOException e) {
+                System.err.println("Game summary not loaded: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package game2048;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Re-simulates every game in a recording log from its seed and checks it against what was
+// recorded: each move must be legal, each spawned tile must be the one the seeded engine
+// produces (or, in a hard-mode game, go on an empty cell), and the final score must match the
+// header. Anything else means the log was
+// edited (or written by an incompatible build).
+//
+// Usage: java -cp game/target/classes game2048.Replay [log]
+public class Replay {
+    public static void main(String[] args) throws Exception {
+        Path file = args.length > 0 ? Path.of(args[0]) : GameRecorder.defaultFile();
+        List<GameRecording> games = GameRecording.readAll(file);
+
+        long start = System.nanoTime();
+        AtomicLong moves = new AtomicLong(), rejected = new AtomicLong();
+        games.parallelStream().forEach(game -> {
+            String problem = verify(game);
+            moves.addAndGet(game.moves);
+            if(problem != null) {
+                rejected.incrementAndGet();
+                System.out.printf("Game seed=%016x: %s%n", game.seed, problem);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long unfinished = games.stream().filter(g -> !g.isFinished()).count();
+        System.out.printf("%d games (%d unfinished), %d moves verified in %.3f s (%.0f moves/s)%n",
+                games.size(), unfinished, moves.get(), seconds, moves.get() / seconds);
+        System.out.println(rejected.get() == 0 ? "All games verified" : rejected.get() + " games failed verification");
+        if(rejected.get() != 0) System.exit(1);
+    }
+
+    // Null if the recording replays exactly, otherwise what went wrong
+    static String verify(GameRecording game) {
+        if(game.version != GameRecording.VERSION) return "recorded with an older spawn algorithm";
+        if(game.winExponent != BitBoard.WIN_EXPONENT || game.fourPercent < 0 || game.fourPercent > 100) {
+            return "recorded with different rules";
+        }
+        if(game.generator != SpawnRandom.SPLITMIX && game.generator != SpawnRandom.XOROSHIRO) {
+            return "unknown spawn generator " + game.generator;
+        }
+        GameEngine engine = start(game);
+        int size = game.size, tiles = 0;
+        for(int cell = 0; cell < size * size; cell++) if(engine.getExponent(cell / size, cell % size) != 0) tiles++;
+        for(int i = 0; i < 2; i++) {
+            int start = game.start(i);
+            if(engine.getExponent((start >>> 8) / size, (start >>> 8) % size) != (start & 0xFF)) return "starting tiles differ";
+        }
+        if(tiles != 2) return "starting tiles differ";
+        for(int i = 0; i < game.moves; i++) {
+            if(!engine.move(game.direction(i))) return "illegal move " + i;
+            if(!spawn(engine, game, i)) return "spawn after move " + i + " differs";
+        }
+        if(engine.getScore() != game.score) return "score " + game.score + " recorded, " + engine.getScore() + " replayed";
+        return null;
+    }
+
+    // The tile after move i: drawn by the engine and compared with the recording, or in a
+    // hard-mode game put where the recording says if that cell is empty. False on a mismatch.
+    static boolean spawn(GameEngine engine, GameRecording game, int i) {
+        int cell = game.spawnCell(i), exponent = game.spawnExponent(i);
+        if((game.flags & GameRecording.FLAG_PLACED) != 0) {
+            if(engine.getExponent(cell / game.size, cell % game.size) != 0) return false;
+            engine.placeTile(cell, exponent);
+            return true;
+        }
+        engine.addNewTile();
+        return engine.getLastSpawnCell() == cell && engine.getLastSpawnExponent() == exponent;
+    }
+
+    // Engine positioned at the start of a recorded game, for step-by-step playback; it spawns
+    // with the game's own generator and 4-spawn chance
+    static GameEngine start(GameRecording game) {
+        GameEngine engine = new GameEngine(game.size, game.seed, SpawnRandom.byId(game.generator), game.fourPercent);
+        engine.reset(game.seed);
+        return engine;
+    }
+}
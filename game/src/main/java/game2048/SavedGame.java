@@ -0,0 +1,236 @@
+package game2048;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+// The game in progress, kept on disk so that Exit, closing the window or a crash does not lose
+// it; the entry screen offers to resume it. A Writer saves after every change to the game:
+// the game thread only marks it dirty, and a background thread takes the engine lock long
+// enough to copy the position out, then writes a temporary file, forces it and renames it over
+// the save, so the file on disk is always a complete old or a complete new save. Changes made
+// while a write is under way are coalesced into the next one.
+// A resumed game carries on in the statistics store (moves, undos and time played) but not in
+// the game log, which only holds games recorded from their first move.
+//
+// File (little-endian): MAGIC, VERSION, board size, spawn generator id, 4-spawn percentage,
+// GameEngine.stateWords(), moves, undos, undoable and redoable positions, flags (HARD) and the
+// milliseconds played (header: HEADER bytes), then GameEngine.saveState of the current position
+// and UndoHistory.save of the undo history, then a CRC32C of everything before it.
+final class SavedGame {
+    static final long MAGIC = 0x3156415338343032L;   // "2048SAV1"
+    static final int VERSION = 1;
+    static final int HARD = 1;   // flag: played against the AdversarialSpawner
+    private static final int HEADER = 56;
+
+    final int size, generatorId, fourPercent, moves, undos, undoable, redoable;
+    final boolean hard;
+    final long playedMillis;
+    private final long[] state, history;
+
+    private SavedGame(ByteBuffer b) {
+        size = b.getInt(12);
+        generatorId = b.getInt(16);
+        fourPercent = b.getInt(20);
+        int words = b.getInt(24);
+        moves = b.getInt(28);
+        undos = b.getInt(32);
+        undoable = b.getInt(36);
+        redoable = b.getInt(40);
+        hard = (b.getInt(44) & HARD) != 0;
+        playedMillis = b.getLong(48);
+        state = new long[words];
+        history = new long[(undoable + 1 + redoable) * words];
+        b.position(HEADER);
+        b.asLongBuffer().get(state).get(history);
+    }
+
+    // The save, savegame.bin in the working directory unless -Dsave.file says otherwise
+    static Path defaultFile() {
+        return Path.of(System.getProperty("save.file", "savegame.bin"));
+    }
+
+    static SavedGame read(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        if(data.length < HEADER + 4) throw new IOException("Save is truncated");
+        ByteBuffer b = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if(b.getLong(0) != MAGIC) throw new IOException("Not a saved game");
+        if(b.getInt(8) != VERSION) throw new IOException("Saved by another version (format " + b.getInt(8) + ")");
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, data.length - 4);
+        if(b.getInt(data.length - 4) != (int) crc.getValue()) throw new IOException("Save is corrupt (checksum mismatch)");
+        int size = b.getInt(12), words = b.getInt(24), positions = b.getInt(36) + 1 + b.getInt(40);
+        if(size < GameEngine.MIN_SIZE || size > GameEngine.MAX_SIZE || b.getInt(36) < 0 || b.getInt(40) < 0
+                || data.length != HEADER + 8L * words * (1 + positions) + 4) {
+            throw new IOException("Save has an inconsistent header");
+        }
+        SavedGame saved = new SavedGame(b);
+        if(saved.engine(0).stateWords() != words) throw new IOException("Save does not match its board size");
+        return saved;
+    }
+
+    // The save to resume, or null if there is none or (after printing why) it can't be used
+    static SavedGame readOrNull(Path file) {
+        if(!Files.exists(file)) return null;
+        try {
+            return read(file);
+        } catch(IOException | RuntimeException e) {
+            System.err.println("Saved game not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // An engine with the saved game's rules; `seed` starts the games after this one
+    GameEngine engine(long seed) {
+        return new GameEngine(size, seed, SpawnRandom.byId(generatorId), fourPercent);
+    }
+
+    // Puts the saved position and undo history into an engine from engine()
+    void restore(GameEngine engine, UndoHistory into) {
+        into.load(history, 0, undoable, redoable, engine);
+    }
+
+    long score() {
+        return position().getScore();
+    }
+
+    // The game as it stood, for the statistics store when it is abandoned instead of resumed
+    StatsStore.Game abandoned() {
+        GameEngine engine = position();
+        byte[] cells = new byte[size * size];
+        engine.copyExponents(cells);
+        int maxExponent = 0;
+        for(byte e : cells) maxExponent = Math.max(maxExponent, e);
+        return new StatsStore.Game(System.currentTimeMillis(), engine.getScore(), playedMillis, moves, undos, maxExponent, size);
+    }
+
+    private GameEngine position() {
+        GameEngine engine = engine(0);
+        engine.loadState(state, 0);
+        return engine;
+    }
+
+    // Keeps the save file up to date with one game window's engine. changed() and finished()
+    // are called with the engine lock held and never touch the disk.
+    static final class Writer implements AutoCloseable {
+        private final Path file, tmp;
+        private final GameEngine engine;
+        private final UndoHistory history;
+        private final int flags;
+        private final Thread thread;
+        private volatile boolean dirty, closed;
+
+        // Copied by changed(), guarded by the engine lock
+        private boolean active;
+        private int moves, undos;
+        private long startMillis;
+
+        // Writer thread only
+        private long[] words = new long[0];
+        private ByteBuffer buf = ByteBuffer.allocate(0);
+        private final CRC32C crc = new CRC32C();
+
+        Writer(Path file, GameEngine engine, UndoHistory history, boolean hard) {
+            this.file = file;
+            this.flags = hard ? HARD : 0;
+            this.tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.engine = engine;
+            this.history = history;
+            thread = new Thread(this::writeLoop, "game-save");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // The game moved, was undone or redone, or a new one started
+        void changed(int moves, int undos, long startMillis) {
+            active = true;
+            this.moves = moves;
+            this.undos = undos;
+            this.startMillis = startMillis;
+            request();
+        }
+
+        // The game is over: there is nothing left to resume
+        void finished() {
+            active = false;
+            request();
+        }
+
+        private void request() {
+            dirty = true;
+            LockSupport.unpark(thread);
+        }
+
+        // Writes any pending change and stops the writer
+        @Override
+        public void close() {
+            closed = true;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(5000);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void writeLoop() {
+            while(true) {
+                if(!dirty) {
+                    if(closed) return;
+                    LockSupport.park(this);
+                    continue;
+                }
+                dirty = false;
+                boolean save;
+                synchronized(engine) {
+                    save = active;
+                    if(save) encode();
+                }
+                try {
+                    if(save) write();
+                    else Files.deleteIfExists(file);
+                } catch(IOException e) {
+                    System.err.println("Could not save the game: " + e.getMessage());
+                }
+            }
+        }
+
+        // Caller holds the engine lock
+        private void encode() {
+            int stateWords = engine.stateWords();
+            int positions = history.undoable() + 1 + history.redoable();
+            int total = stateWords * (1 + positions);
+            if(words.length < total) words = new long[total];
+            int bytes = HEADER + 8 * total + 4;
+            if(buf.capacity() < bytes) buf = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            engine.saveState(words, 0);
+            history.save(words, stateWords);
+            buf.clear();
+            buf.putLong(MAGIC).putInt(VERSION).putInt(engine.getSize()).putInt(engine.getGeneratorId())
+                    .putInt(engine.getFourPercent()).putInt(stateWords).putInt(moves).putInt(undos)
+                    .putInt(history.undoable()).putInt(history.redoable()).putInt(flags)
+                    .putLong(System.currentTimeMillis() - startMillis);
+            for(int i = 0; i < total; i++) buf.putLong(words[i]);
+            crc.reset();
+            crc.update(buf.array(), 0, buf.position());
+            buf.putInt((int) crc.getValue());
+            buf.flip();
+        }
+
+        private void write() throws IOException {
+            try(FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                while(buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
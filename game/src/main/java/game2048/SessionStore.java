@@ -0,0 +1,101 @@
+package game2048;
+
+import java.util.Arrays;
+
+// Game sessions of one board size for GameServer, packed into chunks of a long[] slab: a
+// session is a header word followed by GameEngine.saveState's record (4 longs in all for a
+// 4x4 game), so a million sessions cost a few tens of megabytes and no per-session objects.
+// Workers keep one GameEngine each and load a session into it for the length of a request.
+//
+// Header word: owner connection (high 32 bits, 0 = free slot), won flag (bit 31), moves.
+// Slots are handed out and returned under the store's lock; a live session is only touched
+// by the connection that owns it, so reading and writing its record needs no locking.
+final class SessionStore {
+    private static final int CHUNK_SLOTS = 4096;
+    private static final long WON = 1L << 31, MOVES_MASK = WON - 1;
+
+    final int size, words;
+    private volatile long[][] chunks = new long[0][];
+    private int[] free = new int[64];
+    private int freeCount, slots, live;
+
+    SessionStore(int size, int stateWords) {
+        this.size = size;
+        this.words = 1 + stateWords;
+    }
+
+    // A slot holding the engine's current game, owned by `owner` (> 0)
+    synchronized int create(int owner, GameEngine engine) {
+        int slot;
+        if(freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            slot = slots++;
+            if(slot / CHUNK_SLOTS == chunks.length) {
+                long[][] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[chunks.length] = new long[CHUNK_SLOTS * words];
+                chunks = grown;
+            }
+        }
+        live++;
+        long[] chunk = chunk(slot);
+        int at = offset(slot);
+        chunk[at] = (long) owner << 32;
+        engine.saveState(chunk, at + 1);
+        return slot;
+    }
+
+    synchronized void remove(int slot) {
+        long[] chunk = chunk(slot);
+        if(chunk[offset(slot)] == 0) return;
+        chunk[offset(slot)] = 0;
+        if(freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = slot;
+        live--;
+    }
+
+    // Connection owning the slot, 0 if it is free or out of range
+    int owner(int slot) {
+        long[][] c = chunks;
+        if(slot < 0 || slot / CHUNK_SLOTS >= c.length) return 0;
+        return (int) (c[slot / CHUNK_SLOTS][offset(slot)] >>> 32);
+    }
+
+    void load(int slot, GameEngine engine) {
+        engine.loadState(chunk(slot), offset(slot) + 1);
+    }
+
+    // Writes the engine back after `moves` more moves; `won` sticks once set
+    void save(int slot, GameEngine engine, int moves, boolean won) {
+        long[] chunk = chunk(slot);
+        int at = offset(slot);
+        long header = chunk[at];
+        chunk[at] = (header & ~MOVES_MASK) | Math.min(MOVES_MASK, (header & MOVES_MASK) + moves) | (won ? WON : 0);
+        engine.saveState(chunk, at + 1);
+    }
+
+    int moves(int slot) {
+        return (int) (chunk(slot)[offset(slot)] & MOVES_MASK);
+    }
+
+    boolean won(int slot) {
+        return (chunk(slot)[offset(slot)] & WON) != 0;
+    }
+
+    synchronized int live() {
+        return live;
+    }
+
+    // Heap held by the slab
+    synchronized long bytes() {
+        return (long) chunks.length * CHUNK_SLOTS * words * 8 + free.length * 4L;
+    }
+
+    private long[] chunk(int slot) {
+        return chunks[slot / CHUNK_SLOTS];
+    }
+
+    private int offset(int slot) {
+        return (slot % CHUNK_SLOTS) * words;
+    }
+}
@@ -0,0 +1,132 @@
+package game2048;
+
+// Seedable generator behind tile spawns. The whole state fits in a few longs that
+// GameEngine saves with every undo record, so games replay exactly from their seed.
+// split(i) derives independent stream i (e.g. one per game or per thread in a batch run)
+// without any shared state between streams.
+interface SpawnRandom {
+    int SPLITMIX = 0, XOROSHIRO = 1;
+
+    long nextLong();
+
+    void seed(long seed);
+
+    // Stream `index` derived from this generator's current state
+    SpawnRandom split(long index);
+
+    int stateWords();
+
+    void save(long[] dst, int offset);
+
+    void load(long[] src, int offset);
+
+    // Id written into recordings (SPLITMIX, XOROSHIRO)
+    int id();
+
+    // Uniform in [0, bound) by multiply-shift on the top 32 bits
+    default int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    static SpawnRandom byId(int id) {
+        switch(id) {
+            case SPLITMIX: return new SplitMix();
+            case XOROSHIRO: return new Xoroshiro128PlusPlus();
+            default: throw new IllegalArgumentException("Unknown spawn generator: " + id);
+        }
+    }
+
+    static SpawnRandom byName(String name) {
+        switch(name) {
+            case "splitmix": return new SplitMix();
+            case "xoroshiro": return new Xoroshiro128PlusPlus();
+            default: throw new IllegalArgumentException("Unknown spawn generator: " + name);
+        }
+    }
+
+    // SplitMix64 finalizer
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // SplitMix64: one long of state, a Weyl sequence run through the finalizer
+    final class SplitMix implements SpawnRandom {
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+        private long state;
+
+        public long nextLong() {
+            return mix(state += GOLDEN_GAMMA);
+        }
+
+        public void seed(long seed) {
+            state = seed;
+        }
+
+        public SpawnRandom split(long index) {
+            SplitMix s = new SplitMix();
+            s.state = mix(state ^ mix(index + GOLDEN_GAMMA));
+            return s;
+        }
+
+        public int stateWords() {
+            return 1;
+        }
+
+        public void save(long[] dst, int offset) {
+            dst[offset] = state;
+        }
+
+        public void load(long[] src, int offset) {
+            state = src[offset];
+        }
+
+        public int id() {
+            return SPLITMIX;
+        }
+    }
+
+    // xoroshiro128++ (Blackman and Vigna); seeded through SplitMix64 so no seed gives the all-zero state
+    final class Xoroshiro128PlusPlus implements SpawnRandom {
+        private long s0, s1;
+
+        public long nextLong() {
+            long a = s0, b = s1;
+            long result = Long.rotateLeft(a + b, 17) + a;
+            b ^= a;
+            s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+            s1 = Long.rotateLeft(b, 28);
+            return result;
+        }
+
+        public void seed(long seed) {
+            s0 = mix(seed + 0x9E3779B97F4A7C15L);
+            s1 = mix(seed + 2 * 0x9E3779B97F4A7C15L);
+        }
+
+        public SpawnRandom split(long index) {
+            Xoroshiro128PlusPlus x = new Xoroshiro128PlusPlus();
+            x.seed(mix(s0 ^ mix(index)) ^ s1);
+            return x;
+        }
+
+        public int stateWords() {
+            return 2;
+        }
+
+        public void save(long[] dst, int offset) {
+            dst[offset] = s0;
+            dst[offset + 1] = s1;
+        }
+
+        public void load(long[] src, int offset) {
+            s0 = src[offset];
+            s1 = src[offset + 1];
+        }
+
+        public int id() {
+            return XOROSHIRO;
+        }
+    }
+}
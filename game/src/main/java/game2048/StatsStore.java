@@ -0,0 +1,391 @@
+package game2048;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+// Per-game statistics: an append-only file of fixed-size, checksummed records written by a
+// background thread in batches, plus in-memory aggregates (best score, top scores, per-day
+// totals) that answer every query without touching the file.
+// The aggregates are checkpointed next to the log together with the log length they cover,
+// so opening the store reads the checkpoint and only scans records appended after it. A
+// record torn by a crash fails its checksum and is cut off on the next open.
+final class StatsStore implements AutoCloseable {
+    static final int TOP_N = 100;
+
+    private static final long LOG_MAGIC = 0x3141545338343032L;          // "2048STA1"
+    private static final long CHECKPOINT_MAGIC = 0x3158444938343032L;   // "2048IDX1"
+    private static final int LOG_HEADER = 16, RECORD = 48;
+    private static final byte KIND_GAME = 1, KIND_RESET_BEST = 2, KIND_IMPORTED_BEST = 3;
+    private static final long FLUSH_NANOS = 1_000_000_000L;
+    private static final byte[] SHUTDOWN = new byte[0];
+
+    // One finished game
+    static final class Game {
+        final long endMillis, score, durationMillis;
+        final int moves, undos, maxExponent, size;
+
+        Game(long endMillis, long score, long durationMillis, int moves, int undos, int maxExponent, int size) {
+            this.endMillis = endMillis;
+            this.score = score;
+            this.durationMillis = durationMillis;
+            this.moves = moves;
+            this.undos = undos;
+            this.maxExponent = maxExponent;
+            this.size = size;
+        }
+
+        LocalDate day() {
+            return LocalDate.ofInstant(Instant.ofEpochMilli(endMillis), ZoneId.systemDefault());
+        }
+    }
+
+    // Games, total and best score for one calendar day
+    static final class Day {
+        long games, totalScore, bestScore;
+
+        double averageScore() {
+            return games == 0 ? 0 : (double) totalScore / games;
+        }
+    }
+
+    private final Path file, checkpointFile;
+    private final FileChannel channel;
+    private final BlockingQueue<byte[]> pending = new ArrayBlockingQueue<>(4096);
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Aggregates, guarded by `this`
+    private long records, written;   // records accepted / records on disk
+    private long gamesPlayed, bestScore;
+    private final List<Game> top = new ArrayList<>();   // best first, at most TOP_N
+    private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+
+    private StatsStore(Path file) throws IOException {
+        this.file = file;
+        this.checkpointFile = file.resolveSibling(file.getFileName() + ".idx");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+        writer = new Thread(this::writeLoop, "stats-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // The statistics log, stats.log in the working directory unless -Dstats.file says otherwise
+    static Path defaultFile() {
+        return Path.of(System.getProperty("stats.file", "stats.log"));
+    }
+
+    static StatsStore open(Path file) throws IOException {
+        return new StatsStore(file);
+    }
+
+    // Opens the store, or returns null (after printing why) so the game can run without it
+    static StatsStore openOrNull(Path file) {
+        try {
+            return open(file);
+        } catch(IOException | RuntimeException e) {
+            System.err.println("Statistics disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Queues a finished game; the aggregates include it immediately, the file within a second
+    void recordGame(Game game) {
+        append(KIND_GAME, game);
+    }
+
+    // Best score starts again from zero; the game history is kept
+    void resetBest() {
+        append(KIND_RESET_BEST, new Game(System.currentTimeMillis(), 0, 0, 0, 0, 0, 0));
+    }
+
+    // Carries over a best score kept elsewhere before this store existed
+    void importBest(long score) {
+        append(KIND_IMPORTED_BEST, new Game(System.currentTimeMillis(), score, 0, 0, 0, 0, 0));
+    }
+
+    synchronized long bestScore() {
+        return bestScore;
+    }
+
+    synchronized long gamesPlayed() {
+        return gamesPlayed;
+    }
+
+    // Up to n (<= TOP_N) highest-scoring games, best first
+    synchronized List<Game> topScores(int n) {
+        return new ArrayList<>(top.subList(0, Math.min(n, top.size())));
+    }
+
+    // Per-day totals, oldest day first
+    synchronized SortedMap<LocalDate, Day> days() {
+        TreeMap<LocalDate, Day> copy = new TreeMap<>();
+        days.forEach((day, d) -> {
+            Day c = new Day();
+            c.games = d.games;
+            c.totalScore = d.totalScore;
+            c.bestScore = d.bestScore;
+            copy.put(day, c);
+        });
+        return copy;
+    }
+
+    // Writes everything queued so far, saves a checkpoint and stops the writer
+    @Override
+    public void close() {
+        synchronized(this) {
+            if(closed) return;
+            closed = true;
+        }
+        try {
+            pending.put(SHUTDOWN);
+            writer.join(5000);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch(IOException e) {
+            System.err.println("Could not close statistics: " + e.getMessage());
+        }
+    }
+
+    private void append(byte kind, Game game) {
+        byte[] record = encode(kind, game);
+        synchronized(this) {
+            if(closed) return;
+            // Only a full queue (writer stalled on I/O) blocks, and then only briefly
+            try {
+                if(!pending.offer(record, 100, TimeUnit.MILLISECONDS)) {
+                    System.err.println("Statistics queue full, game dropped");
+                    return;
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            apply(kind, game);
+            records++;
+        }
+    }
+
+    private void apply(byte kind, Game game) {
+        switch(kind) {
+            case KIND_RESET_BEST: bestScore = 0; break;
+            case KIND_IMPORTED_BEST: bestScore = Math.max(bestScore, game.score); break;
+            case KIND_GAME:
+                gamesPlayed++;
+                bestScore = Math.max(bestScore, game.score);
+                Day day = days.computeIfAbsent(game.day(), d -> new Day());
+                day.games++;
+                day.totalScore += game.score;
+                day.bestScore = Math.max(day.bestScore, game.score);
+                addTop(game);
+                break;
+        }
+    }
+
+    private void addTop(Game game) {
+        if(top.size() == TOP_N && top.get(TOP_N - 1).score >= game.score) return;
+        int i = top.size();
+        while(i > 0 && top.get(i - 1).score < game.score) i--;
+        top.add(i, game);
+        if(top.size() > TOP_N) top.remove(TOP_N);
+    }
+
+    // Collects records for up to a second and writes them with one write + force
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        long nextFlush = System.nanoTime() + FLUSH_NANOS;
+        boolean stopping = false;
+        while(!stopping) {
+            try {
+                byte[] r = pending.poll(Math.max(0, nextFlush - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if(r == SHUTDOWN) stopping = true;
+                else if(r != null) batch.add(r);
+            } catch(InterruptedException e) {
+                stopping = true;
+            }
+            if(stopping || System.nanoTime() >= nextFlush) {
+                if(!batch.isEmpty()) write(batch);
+                batch.clear();
+                nextFlush = System.nanoTime() + FLUSH_NANOS;
+            }
+        }
+    }
+
+    private void write(List<byte[]> batch) {
+        ByteBuffer buf = ByteBuffer.allocate(batch.size() * RECORD);
+        for(byte[] r : batch) buf.put(r);
+        buf.flip();
+        try {
+            long pos;
+            synchronized(this) {
+                pos = LOG_HEADER + written * RECORD;
+            }
+            while(buf.hasRemaining()) pos += channel.write(buf, pos);
+            channel.force(false);
+            byte[] checkpoint;
+            synchronized(this) {
+                written += batch.size();
+                checkpoint = written == records ? encodeCheckpoint() : null;
+            }
+            if(checkpoint != null) saveCheckpoint(checkpoint);
+        } catch(IOException e) {
+            System.err.println("Could not write statistics: " + e.getMessage());
+        }
+    }
+
+    // Loads the checkpoint if it matches the log, then replays and validates the rest of the log
+    private void recover() throws IOException {
+        long size = channel.size();
+        if(size < LOG_HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(LOG_MAGIC).putLong(RECORD).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(false);
+            size = LOG_HEADER;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if(header.getLong(0) != LOG_MAGIC) throw new IOException("Not a statistics log: " + file);
+        }
+
+        long start = loadCheckpoint(size);
+        ByteBuffer buf = ByteBuffer.allocate(RECORD * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        long pos = LOG_HEADER + start * RECORD;
+        records = start;
+        scan:
+        while(pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if(n < RECORD) break;
+            buf.flip();
+            while(buf.remaining() >= RECORD) {
+                byte[] r = new byte[RECORD];
+                buf.get(r);
+                if(!valid(r)) break scan;
+                apply(r[32], decode(r));
+                records++;
+                pos += RECORD;
+            }
+        }
+        if(pos < size) {
+            System.err.println("Statistics log: dropped " + (size - pos) + " bytes after the last intact record");
+            channel.truncate(pos);
+        }
+        written = records;
+    }
+
+    private static byte[] encode(byte kind, Game g) {
+        ByteBuffer b = ByteBuffer.allocate(RECORD).order(ByteOrder.LITTLE_ENDIAN);
+        b.putLong(g.endMillis).putLong(g.score).putLong(g.durationMillis).putInt(g.moves).putInt(g.undos);
+        b.put(kind).put((byte) g.maxExponent).put((byte) g.size).put((byte) 0).putInt(0);
+        CRC32C crc = new CRC32C();
+        crc.update(b.array(), 0, 40);
+        b.putInt((int) crc.getValue()).putInt(0);
+        return b.array();
+    }
+
+    private static boolean valid(byte[] r) {
+        CRC32C crc = new CRC32C();
+        crc.update(r, 0, 40);
+        return ByteBuffer.wrap(r).order(ByteOrder.LITTLE_ENDIAN).getInt(40) == (int) crc.getValue() && r[32] != 0;
+    }
+
+    private static Game decode(byte[] r) {
+        ByteBuffer b = ByteBuffer.wrap(r).order(ByteOrder.LITTLE_ENDIAN);
+        return new Game(b.getLong(0), b.getLong(8), b.getLong(16), b.getInt(24), b.getInt(28), r[33], r[34]);
+    }
+
+    // Checkpoint: magic, records covered, aggregates, then a CRC of everything before it
+    private byte[] encodeCheckpoint() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(CHECKPOINT_MAGIC);
+            out.writeLong(records);
+            out.writeLong(gamesPlayed);
+            out.writeLong(bestScore);
+            out.writeInt(top.size());
+            for(Game g : top) {
+                out.writeLong(g.endMillis);
+                out.writeLong(g.score);
+                out.writeLong(g.durationMillis);
+                out.writeInt(g.moves);
+                out.writeInt(g.undos);
+                out.writeByte(g.maxExponent);
+                out.writeByte(g.size);
+            }
+            out.writeInt(days.size());
+            for(Map.Entry<LocalDate, Day> e : days.entrySet()) {
+                out.writeLong(e.getKey().toEpochDay());
+                out.writeLong(e.getValue().games);
+                out.writeLong(e.getValue().totalScore);
+                out.writeLong(e.getValue().bestScore);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void saveCheckpoint(byte[] checkpoint) throws IOException {
+        Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(tmp, checkpoint);
+        Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Restores the aggregates from the checkpoint and returns the number of records it covers (0 if unusable)
+    private long loadCheckpoint(long logSize) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(checkpointFile);
+        } catch(IOException e) {
+            return 0;
+        }
+        if(data.length < 4) return 0;
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, data.length - 4);
+        if(ByteBuffer.wrap(data, data.length - 4, 4).getInt() != (int) crc.getValue()) return 0;
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if(in.readLong() != CHECKPOINT_MAGIC) return 0;
+            long covered = in.readLong();
+            if(LOG_HEADER + covered * RECORD > logSize) return 0;   // log was cut back below the checkpoint
+            gamesPlayed = in.readLong();
+            bestScore = in.readLong();
+            for(int i = in.readInt(); i > 0; i--) {
+                top.add(new Game(in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readInt(),
+                        in.readByte(), in.readByte()));
+            }
+            for(int i = in.readInt(); i > 0; i--) {
+                Day d = new Day();
+                LocalDate day = LocalDate.ofEpochDay(in.readLong());
+                d.games = in.readLong();
+                d.totalScore = in.readLong();
+                d.bestScore = in.readLong();
+                days.put(day, d);
+            }
+            return covered;
+        } catch(IOException e) {
+            gamesPlayed = bestScore = 0;
+            top.clear();
+            days.clear();
+            return 0;
+        }
+    }
+}
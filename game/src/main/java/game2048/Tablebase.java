@@ -0,0 +1,237 @@
+package game2048;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Exact endgame table for the 3x3 board, written by TablebaseGenerator: for every position
+// reachable without yet holding the target tile, the move that maximises the chance of
+// reaching it under the GameEngine spawn rule, and that chance. Positions are stored once per
+// symmetry class (the smallest of the 8 images) and grouped in layers by tile sum, which a
+// move keeps and a spawn raises by 2 or 4.
+//
+// File (little-endian): header page with MAGIC, size, target exponent, 4-spawn percentage,
+// layer count, total entries and a completed flag (set once every value is in), then
+// (first entry, entry count) per layer indexed by sum / 2, then the entries from
+// dataOffset(layers) on (the first page after that directory), each layer sorted by key:
+//   bits 0..35   position, cell (row * 3 + col) in nibble cell
+//   bits 36..38  best BitBoard direction on that image, NO_MOVE if there is none
+//   bits 39..63  probability of reaching the target, in units of 1 / PROBABILITY_ONE
+// Lookups binary-search the mapped entries in place: nothing is read onto the heap, windows of
+// WINDOW_ENTRIES are mapped separately, and only the pages a search touches are ever loaded, so
+// tables larger than RAM work.
+final class Tablebase implements AutoCloseable {
+    static final int SIZE = 3, CELLS = SIZE * SIZE;
+    static final long MAGIC = 0x314C425438343032L;   // "2048TBL1"
+    static final int HEADER = 4096, DIRECTORY = 64, COMPLETE_OFFSET = 32;
+    static final int KEY_BITS = 36, NO_MOVE = 4;
+    static final long KEY_MASK = (1L << KEY_BITS) - 1;
+    static final int PROBABILITY_SHIFT = 39;
+    static final long PROBABILITY_ONE = (1L << (64 - PROBABILITY_SHIFT)) - 1;
+    private static final int WINDOW_SHIFT = 27, WINDOW_ENTRIES = 1 << WINDOW_SHIFT;   // 1 GiB windows
+
+    // Cell each cell lands on under each symmetry, numbered as in BoardHash
+    private static final int[][] IMAGE = new int[BoardHash.SYMMETRIES][CELLS];
+
+    static {
+        for(int s = 0; s < BoardHash.SYMMETRIES; s++) {
+            for(int cell = 0; cell < CELLS; cell++) {
+                int r = cell / SIZE, c = cell % SIZE;
+                if((s & 4) != 0) {
+                    int tmp = r;
+                    r = c;
+                    c = tmp;
+                }
+                if((s & 1) != 0) c = SIZE - 1 - c;
+                if((s & 2) != 0) r = SIZE - 1 - r;
+                IMAGE[s][cell] = r * SIZE + c;
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final int targetExponent, fourPercent;
+    private final long[] layerStart, layerCount;
+    private final MappedByteBuffer[] maps;
+    private final LongBuffer[] windows;
+
+    // Maps an existing table; TablebaseGenerator maps its output writable while filling it in
+    Tablebase(FileChannel channel, boolean writable) throws IOException {
+        this.channel = channel;
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        if(channel.size() < HEADER) throw new IOException("Tablebase is truncated");
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if(header.getLong(0) != MAGIC) throw new IOException("Not a tablebase");
+        if(!writable && header.getInt(COMPLETE_OFFSET) != 1) throw new IOException("Tablebase generation did not finish");
+        if(header.getInt(8) != SIZE) throw new IOException("Tablebase for a " + header.getInt(8) + "x" + header.getInt(8) + " board");
+        targetExponent = header.getInt(12);
+        fourPercent = header.getInt(16);
+        int layers = header.getInt(20);
+        long entries = header.getLong(24);
+        if(channel.size() < dataOffset(layers) + entries * 8) throw new IOException("Tablebase is truncated");
+        MappedByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, DIRECTORY, 16L * layers);
+        directory.order(ByteOrder.LITTLE_ENDIAN);
+        layerStart = new long[layers];
+        layerCount = new long[layers];
+        for(int i = 0; i < layers; i++) {
+            layerStart[i] = directory.getLong(16 * i);
+            layerCount[i] = directory.getLong(16 * i + 8);
+        }
+        maps = new MappedByteBuffer[(int) ((entries + WINDOW_ENTRIES - 1) >>> WINDOW_SHIFT)];
+        windows = new LongBuffer[maps.length];
+        for(int w = 0; w < windows.length; w++) {
+            long first = (long) w << WINDOW_SHIFT, count = Math.min(WINDOW_ENTRIES, entries - first);
+            maps[w] = channel.map(mode, dataOffset(layers) + first * 8, count * 8);
+            windows[w] = maps[w].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+    }
+
+    // Entries start on the first page after the directory
+    static long dataOffset(int layers) {
+        return (DIRECTORY + 16L * layers + HEADER - 1) / HEADER * HEADER;
+    }
+
+    // The table, tablebase3x3.tb in the working directory unless -Dtablebase.file says otherwise
+    static Path defaultFile() {
+        return Path.of(System.getProperty("tablebase.file", "tablebase3x3.tb"));
+    }
+
+    static Tablebase open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new Tablebase(channel, false);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Read-only table for hints, or null (after printing why) if there is no usable one
+    static Tablebase openOrNull(Path file) {
+        if(!Files.exists(file)) return null;
+        try {
+            return open(file);
+        } catch(IOException e) {
+            System.err.println("Tablebase not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    int targetExponent() {
+        return targetExponent;
+    }
+
+    int fourPercent() {
+        return fourPercent;
+    }
+
+    // Best BitBoard direction for the row-major exponents, or -1 if the position is not in the
+    // table or has no legal move
+    int bestMove(byte[] cells) {
+        long key = key(cells), canonical = canonical(key);
+        long entry = entry(canonical);
+        if(entry == 0) return -1;
+        int move = (int) (entry >>> KEY_BITS) & 7;
+        return move == NO_MOVE ? -1 : BoardHash.fromCanonical(move, symmetryOf(key, canonical));
+    }
+
+    // Chance of reaching the target tile with best play, or NaN if the position is not in the table
+    double winProbability(byte[] cells) {
+        long entry = entry(canonical(key(cells)));
+        return entry == 0 ? Double.NaN : probability(entry);
+    }
+
+    static double probability(long entry) {
+        return (double) (entry >>> PROBABILITY_SHIFT) / PROBABILITY_ONE;
+    }
+
+    // The entry for a canonical key, or 0 (no position is empty) if it isn't in the table
+    long entry(long canonical) {
+        int layer = sum(canonical) >>> 1;
+        if(layer >= layerStart.length) return 0;
+        long lo = layerStart[layer], hi = lo + layerCount[layer] - 1;
+        while(lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long e = get(mid), k = e & KEY_MASK;
+            if(k < canonical) lo = mid + 1;
+            else if(k > canonical) hi = mid - 1;
+            else return e;
+        }
+        return 0;
+    }
+
+    long get(long index) {
+        return windows[(int) (index >>> WINDOW_SHIFT)].get((int) (index & (WINDOW_ENTRIES - 1)));
+    }
+
+    void put(long index, long entry) {
+        windows[(int) (index >>> WINDOW_SHIFT)].put((int) (index & (WINDOW_ENTRIES - 1)), entry);
+    }
+
+    long layerStart(int layer) {
+        return layerStart[layer];
+    }
+
+    long layerCount(int layer) {
+        return layerCount[layer];
+    }
+
+    int layers() {
+        return layerStart.length;
+    }
+
+    // Writes entries put() so far back to the file
+    void force() {
+        for(MappedByteBuffer m : maps) m.force();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch(IOException e) {
+            System.err.println("Could not close tablebase: " + e.getMessage());
+        }
+    }
+
+    static long key(byte[] cells) {
+        long key = 0;
+        for(int cell = 0; cell < CELLS; cell++) key |= (long) cells[cell] << (4 * cell);
+        return key;
+    }
+
+    static int sum(long key) {
+        int sum = 0;
+        for(long k = key; k != 0; k >>>= 4) {
+            int e = (int) (k & 0xF);
+            if(e != 0) sum += 1 << e;
+        }
+        return sum;
+    }
+
+    static long transform(long key, int s) {
+        long image = 0;
+        for(int cell = 0; cell < CELLS; cell++) image |= ((key >>> (4 * cell)) & 0xF) << (4 * IMAGE[s][cell]);
+        return image;
+    }
+
+    // Smallest of the 8 images
+    static long canonical(long key) {
+        long min = key;
+        for(int s = 1; s < BoardHash.SYMMETRIES; s++) min = Math.min(min, transform(key, s));
+        return min;
+    }
+
+    private static int symmetryOf(long key, long canonical) {
+        for(int s = 0; s < BoardHash.SYMMETRIES; s++) {
+            if(transform(key, s) == canonical) return s;
+        }
+        throw new IllegalArgumentException("not an image of the key");
+    }
+}
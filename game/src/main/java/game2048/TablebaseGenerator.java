@@ -0,0 +1,241 @@
+package game2048;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+// Builds a Tablebase: every 3x3 position reachable from a start without holding the target
+// tile, solved exactly for the chance of reaching it. Moves and the spawn rule are
+// GameEngine's (ByteBoard.move, a 2 or with fourPercent a 4 on a uniformly chosen empty cell).
+// A move keeps the tile sum and a spawn adds 2 or 4, so positions fall into layers by sum and
+// every layer depends only on the two above it:
+//   forward, by rising sum: each layer is the sorted, de-duplicated set of canonical positions
+//     spawned from the two below it, appended to the file as bare keys;
+//   backward, by falling sum: each entry gets its best move and probability, looked up in the
+//     layers above through the mapped file.
+// Both passes run in parallel within a layer. Heap use is a few layers' keys, however large
+// the table.
+//
+// Usage: java -cp game/target/classes game2048.TablebaseGenerator [target exponent] [file] [check games]
+// (default 9, i.e. reach 512; -Dtablebase.file; 1000 games played with the table afterwards to
+// check the predicted win rate)
+public class TablebaseGenerator {
+    private static final long FOUR = 1L << 40;   // marks a successor with a spawned 4 until the layers are split
+
+    public static void main(String[] args) throws Exception {
+        int target = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        Path file = args.length > 1 ? Path.of(args[1]) : Tablebase.defaultFile();
+        int checkGames = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        if(target < 3 || target > 15) throw new IllegalArgumentException("Target exponent out of range: " + target);
+
+        long start = System.nanoTime();
+        generate(file, target, GameEngine.FOUR_PERCENT);
+        System.out.printf("Solved in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        try(Tablebase table = Tablebase.open(file)) {
+            check(table, checkGames);
+        }
+    }
+
+    static void generate(Path file, int target, int fourPercent) throws IOException {
+        int layers = (Tablebase.CELLS << (target - 1)) / 2 + 1;
+        long data = Tablebase.dataOffset(layers);
+        long[] layerStart = new long[layers], layerCount = new long[layers];
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Forward: discover the layers
+            TreeMap<Integer, long[]> pending = new TreeMap<>();
+            for(Map.Entry<Integer, long[]> e : startPositions().entrySet()) pending.merge(e.getKey(), e.getValue(), TablebaseGenerator::union);
+            long entries = 0;
+            while(!pending.isEmpty()) {
+                Map.Entry<Integer, long[]> layer = pending.pollFirstEntry();
+                int sum = layer.getKey();
+                long[] keys = layer.getValue();
+                layerStart[sum / 2] = entries;
+                layerCount[sum / 2] = keys.length;
+                ByteBuffer buf = ByteBuffer.allocate(keys.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+                buf.asLongBuffer().put(keys);
+                for(long pos = data + entries * 8; buf.hasRemaining(); ) pos += channel.write(buf, pos);
+                entries += keys.length;
+
+                long[] next = LongStream.of(keys).parallel().flatMap(k -> LongStream.of(successors(k, target)))
+                        .sorted().distinct().toArray();
+                int split = 0;
+                while(split < next.length && next[split] < FOUR) split++;
+                if(split > 0) pending.merge(sum + 2, Arrays.copyOf(next, split), TablebaseGenerator::union);
+                if(split < next.length) {
+                    long[] fours = Arrays.copyOfRange(next, split, next.length);
+                    for(int i = 0; i < fours.length; i++) fours[i] -= FOUR;
+                    pending.merge(sum + 4, fours, TablebaseGenerator::union);
+                }
+            }
+            System.out.printf("%,d positions in %d layers, %.1f MB%n", entries,
+                    Arrays.stream(layerCount).filter(c -> c > 0).count(), (data + entries * 8) / 1e6);
+
+            ByteBuffer header = ByteBuffer.allocate((int) data).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, Tablebase.MAGIC).putInt(8, Tablebase.SIZE).putInt(12, target).putInt(16, fourPercent)
+                    .putInt(20, layers).putLong(24, entries).putInt(Tablebase.COMPLETE_OFFSET, 0);
+            for(int i = 0; i < layers; i++) {
+                header.putLong(Tablebase.DIRECTORY + 16 * i, layerStart[i]);
+                header.putLong(Tablebase.DIRECTORY + 16 * i + 8, layerCount[i]);
+            }
+            while(header.hasRemaining()) channel.write(header, header.position());
+
+            // Backward: solve the layers from the top
+            Tablebase table = new Tablebase(channel, true);
+            for(int layer = layers - 1; layer >= 0; layer--) {
+                long first = layerStart[layer];
+                LongStream.range(first, first + layerCount[layer]).parallel()
+                        .forEach(i -> table.put(i, solve(table, table.get(i), target, fourPercent)));
+            }
+            table.force();
+            ByteBuffer complete = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1);
+            channel.write(complete, Tablebase.COMPLETE_OFFSET);
+            channel.force(true);
+        }
+    }
+
+    // Canonical positions after every legal move and spawn; those with a 4 carry FOUR
+    private static long[] successors(long key, int target) {
+        byte[] cells = new byte[Tablebase.CELLS];
+        long[] out = new long[4 * 2 * Tablebase.CELLS];
+        int n = 0;
+        for(int dir = 0; dir < 4; dir++) {
+            long after = move(key, dir, cells);
+            if(after < 0 || maxExponent(cells) >= target) continue;
+            for(int cell = 0; cell < Tablebase.CELLS; cell++) {
+                if(cells[cell] != 0) continue;
+                out[n++] = Tablebase.canonical(after | 1L << (4 * cell));
+                out[n++] = Tablebase.canonical(after | 2L << (4 * cell)) + FOUR;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // The full entry for a bare key whose successors are all solved
+    private static long solve(Tablebase table, long key, int target, int fourPercent) {
+        byte[] cells = new byte[Tablebase.CELLS];
+        double best = 0, pFour = fourPercent / 100.0;
+        int bestDir = Tablebase.NO_MOVE;
+        for(int dir = 0; dir < 4; dir++) {
+            long after = move(key, dir, cells);
+            if(after < 0) continue;
+            double value;
+            if(maxExponent(cells) >= target) {
+                value = 1;
+            } else {
+                double sum = 0;
+                int empty = 0;
+                for(int cell = 0; cell < Tablebase.CELLS; cell++) {
+                    if(cells[cell] != 0) continue;
+                    empty++;
+                    sum += (1 - pFour) * solved(table, after | 1L << (4 * cell)) + pFour * solved(table, after | 2L << (4 * cell));
+                }
+                value = sum / empty;
+            }
+            if(bestDir == Tablebase.NO_MOVE || value > best) {
+                best = value;
+                bestDir = dir;
+            }
+        }
+        return key | (long) bestDir << Tablebase.KEY_BITS | Math.round(best * Tablebase.PROBABILITY_ONE) << Tablebase.PROBABILITY_SHIFT;
+    }
+
+    private static double solved(Tablebase table, long key) {
+        long entry = table.entry(Tablebase.canonical(key));
+        if(entry == 0) throw new IllegalStateException("Position missing from the forward pass: " + Long.toHexString(key));
+        return Tablebase.probability(entry);
+    }
+
+    // The key after sliding `key` in dir (cells hold the result), or -1 if nothing moves
+    private static long move(long key, int dir, byte[] cells) {
+        for(int cell = 0; cell < Tablebase.CELLS; cell++) cells[cell] = (byte) ((key >>> (4 * cell)) & 0xF);
+        if((ByteBoard.move(cells, Tablebase.SIZE, dir) & ByteBoard.MOVED) == 0) return -1;
+        return Tablebase.key(cells);
+    }
+
+    private static int maxExponent(byte[] cells) {
+        int max = 0;
+        for(byte e : cells) max = Math.max(max, e);
+        return max;
+    }
+
+    // Every pair of starting tiles, canonical, by tile sum
+    private static Map<Integer, long[]> startPositions() {
+        TreeMap<Integer, long[]> layers = new TreeMap<>();
+        for(int a = 0; a < Tablebase.CELLS; a++) {
+            for(int b = a + 1; b < Tablebase.CELLS; b++) {
+                for(int ea = 1; ea <= 2; ea++) {
+                    for(int eb = 1; eb <= 2; eb++) {
+                        long key = Tablebase.canonical((long) ea << (4 * a) | (long) eb << (4 * b));
+                        layers.merge(Tablebase.sum(key), new long[] {key}, TablebaseGenerator::union);
+                    }
+                }
+            }
+        }
+        return layers;
+    }
+
+    // Union of two sorted, duplicate-free arrays
+    private static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while(i < a.length || j < b.length) {
+            long next = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i] : b[j];
+            if(i < a.length && a[i] == next) i++;
+            if(j < b.length && b[j] == next) j++;
+            out[n++] = next;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Plays games headlessly with the table's moves and compares the share that reached the
+    // target with the table's own prediction for a fresh game
+    static void check(Tablebase table, int games) {
+        if(games <= 0) return;
+        int target = table.targetExponent();
+        double pFour = table.fourPercent() / 100.0, predicted = 0;
+        byte[] cells = new byte[Tablebase.CELLS];
+        for(int a = 0; a < Tablebase.CELLS; a++) {
+            for(int b = 0; b < Tablebase.CELLS; b++) {
+                if(a == b) continue;
+                for(int ea = 1; ea <= 2; ea++) {
+                    for(int eb = 1; eb <= 2; eb++) {
+                        Arrays.fill(cells, (byte) 0);
+                        cells[a] = (byte) ea;
+                        cells[b] = (byte) eb;
+                        double p = (ea == 2 ? pFour : 1 - pFour) * (eb == 2 ? pFour : 1 - pFour) / (Tablebase.CELLS * (Tablebase.CELLS - 1));
+                        predicted += p * table.winProbability(cells);
+                    }
+                }
+            }
+        }
+
+        GameEngine engine = new GameEngine(Tablebase.SIZE, 1L, new SpawnRandom.SplitMix(), table.fourPercent());
+        int reached = 0;
+        long moves = 0;
+        for(int g = 0; g < games; g++) {
+            engine.reset();
+            while(true) {
+                engine.copyExponents(cells);
+                if(maxExponent(cells) >= target) {
+                    reached++;
+                    break;
+                }
+                int dir = table.bestMove(cells);
+                if(dir < 0) break;
+                engine.move(dir);
+                engine.addNewTile();
+                moves++;
+            }
+        }
+        System.out.printf("Table predicts %.2f%% of games reach %s; %d played games: %.2f%% (%,d moves)%n",
+                100 * predicted, ByteBoard.label(target), games, 100.0 * reached / games, moves);
+    }
+}
@@ -0,0 +1,57 @@
+package game2048;
+
+// Bounded, lock-free cache of search values keyed by board, shared by all search threads.
+// The slot count is a fixed power of two; a new entry simply evicts whatever hashed to its slot.
+// Each slot is a (check, data) pair written without locks, with check = key ^ data, so a torn
+// or interleaved write from two threads reads back as a miss instead of a wrong value.
+// A symmetric table keys every board by BoardHash.canonical(), so all rotations and mirror
+// images of a position share one slot; only valid when stored values are symmetric too.
+class TranspositionTable {
+    private final long[] checks;
+    private final long[] data;
+    private final int mask;
+    private final boolean symmetric;
+
+    TranspositionTable(int log2Slots) {
+        this(log2Slots, false);
+    }
+
+    TranspositionTable(int log2Slots, boolean symmetric) {
+        if(log2Slots < 1 || log2Slots > 28) throw new IllegalArgumentException("log2Slots out of range: " + log2Slots);
+        checks = new long[1 << log2Slots];
+        data = new long[1 << log2Slots];
+        mask = (1 << log2Slots) - 1;
+        this.symmetric = symmetric;
+    }
+
+    // Value stored for key by a search at least `depth` deep, or NaN on a miss
+    double get(long key, int depth) {
+        if(symmetric) key = BoardHash.canonical(key);
+        int i = index(key);
+        long d = data[i];
+        if((checks[i] ^ d) != key || (int) (d >>> 32) < depth) return Double.NaN;
+        return Float.intBitsToFloat((int) d);
+    }
+
+    void put(long key, int depth, double value) {
+        if(symmetric) key = BoardHash.canonical(key);
+        int i = index(key);
+        long d = (long) depth << 32 | (Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL);
+        data[i] = d;
+        checks[i] = key ^ d;
+    }
+
+    void clear() {
+        java.util.Arrays.fill(checks, 0L);
+        java.util.Arrays.fill(data, 0L);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
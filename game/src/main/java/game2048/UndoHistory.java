@@ -0,0 +1,124 @@
+package game2048;
+
+// Fixed-capacity undo/redo history of (board, score) positions, kept outside the Swing code
+// so it can be exercised headlessly.
+// Positions live in a primitive ring buffer of records packed by GameEngine.saveState (one
+// long for a 4x4 bitboard, a few more for larger boards): the slot at `cursor` is the
+// current position, the `undoable` slots before it can be undone to and the `redoable`
+// slots after it redone to. Recording past the capacity overwrites the oldest position;
+// nothing here allocates after construction.
+class UndoHistory {
+    private final long[] records;   // `words` longs per slot
+    private final int slots, words;
+    private int cursor, undoable, redoable;
+
+    // depth = number of moves that can be undone; stateWords = GameEngine.stateWords()
+    UndoHistory(int depth, int stateWords) {
+        if(depth < 1) throw new IllegalArgumentException("Undo depth must be positive: " + depth);
+        slots = depth + 1;
+        words = stateWords;
+        records = new long[words * slots];
+    }
+
+    // Forgets everything and makes the engine's position the oldest one
+    void reset(GameEngine engine) {
+        cursor = 0;
+        undoable = 0;
+        redoable = 0;
+        write(engine);
+    }
+
+    // Call after a move that changed the board; drops any redo positions
+    void record(GameEngine engine) {
+        cursor = next(cursor);
+        write(engine);
+        if(undoable < slots - 1) undoable++;
+        redoable = 0;
+    }
+
+    // Moves back one position; false if there is nothing to undo
+    boolean undo(GameEngine engine) {
+        if(undoable == 0) return false;
+        cursor = cursor == 0 ? slots - 1 : cursor - 1;
+        undoable--;
+        redoable++;
+        read(engine);
+        return true;
+    }
+
+    // Moves forward again after an undo; false if there is nothing to redo
+    boolean redo(GameEngine engine) {
+        if(redoable == 0) return false;
+        cursor = next(cursor);
+        redoable--;
+        undoable++;
+        read(engine);
+        return true;
+    }
+
+    boolean canUndo() {
+        return undoable > 0;
+    }
+
+    boolean canRedo() {
+        return redoable > 0;
+    }
+
+    int depth() {
+        return slots - 1;
+    }
+
+    int undoable() {
+        return undoable;
+    }
+
+    int redoable() {
+        return redoable;
+    }
+
+    // Copies the reachable positions, oldest first, to dst: (undoable + 1 + redoable) records
+    void save(long[] dst, int offset) {
+        int slot = cursor - undoable;
+        if(slot < 0) slot += slots;
+        for(int i = undoable + 1 + redoable; i > 0; i--, offset += words) {
+            System.arraycopy(records, words * slot, dst, offset, words);
+            slot = next(slot);
+        }
+    }
+
+    // Replaces the history with records laid out as save() writes them, `undoable` before the
+    // current position and `redoable` after it, and loads the current one into the engine.
+    // Positions past this history's depth are dropped: the oldest first, then the last redos.
+    void load(long[] src, int offset, int undoable, int redoable, GameEngine engine) {
+        int excess = Math.max(0, undoable + 1 + redoable - slots);
+        int oldest = Math.min(excess, undoable);
+        offset += oldest * words;
+        this.undoable = undoable - oldest;
+        this.redoable = redoable - (excess - oldest);
+        int kept = this.undoable + 1 + this.redoable;
+        System.arraycopy(src, offset, records, 0, kept * words);
+        cursor = this.undoable;
+        read(engine);
+    }
+
+    // Bytes allocated for the ring, and the part holding reachable positions
+    long memoryBytes() {
+        return records.length * 8L;
+    }
+
+    long usedBytes() {
+        return (long) (undoable + redoable + 1) * words * 8;
+    }
+
+    private int next(int slot) {
+        return slot == slots - 1 ? 0 : slot + 1;
+    }
+
+    private void write(GameEngine engine) {
+        engine.saveState(records, words * cursor);
+    }
+
+    private void read(GameEngine engine) {
+        engine.loadState(records, words * cursor);
+    }
+}
@@ -0,0 +1,176 @@
+package game2048;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// BoardBatch on the Vector API: each step works on LONGS.length() lanes at once (8 with
+// AVX-512), lanes past the last full vector go through the scalar lane methods.
+//   move: columns are transposed into rows, then each of the four rows is looked up with a
+//     gather from a table packing the slid row, its score and the MOVED/WIN flags (one lookup
+//     instead of BitBoard's two).
+//   spawn: SplitMix, the bounded draw and selectBit's popcount binary search done in lanes;
+//     there is no popcount lane op before JDK 19, so it is the usual shift-and-add one.
+//   gameOver: a full board is over when no two neighbours along a row or column hold the same
+//     exponent (two 32768s do not merge), found with nibble-wise xor: no lookups at all.
+// Only loaded once BoardBatch.vectorAvailable() has seen the module.
+final class VectorBoardBatch extends BoardBatch {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    // Gather indices: same lane count as LONGS, half the width
+    private static final VectorSpecies<Integer> INDICES =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    // Per 16-bit row: slid row in bits 0..15, score from bit 16, MOVED at bit 40, WIN at 41
+    private static final int INFO_SHIFT = 16, FLAG_SHIFT = 40;
+    private static final long[] LINE_LEFT = lineTable(BitBoard.LEFT), LINE_RIGHT = lineTable(BitBoard.RIGHT);
+
+    private static final long H_NEIGHBOURS = 0x0111011101110111L;   // cells with a neighbour to the right
+    private static final long V_NEIGHBOURS = 0x0000111111111111L;   // cells with a neighbour below
+
+    private final int[] index = new int[LONGS.length()];
+
+    VectorBoardBatch(int lanes, int fourPercent) {
+        super(lanes, fourPercent);
+    }
+
+    private static long[] lineTable(int dir) {
+        long[] table = new long[65536];
+        for(int row = 0; row < table.length; row++) {
+            int info = BitBoard.moveInfo(row, dir);
+            table[row] = BitBoard.move(row, dir) & 0xFFFF | (long) (info & BitBoard.SCORE_MASK) << INFO_SHIFT
+                    | (long) (info >>> 24) << FLAG_SHIFT;
+        }
+        return table;
+    }
+
+    @Override
+    int move(int dir) {
+        boolean columns = dir == BitBoard.UP || dir == BitBoard.DOWN;
+        long[] table = dir == BitBoard.UP || dir == BitBoard.LEFT ? LINE_LEFT : LINE_RIGHT;
+        int moved = 0, i = 0;
+        for(int bound = LONGS.loopBound(lanes); i < bound; i += LONGS.length()) {
+            LongVector b = LongVector.fromArray(LONGS, boards, i);
+            if(columns) b = transpose(b);
+            LongVector result = LongVector.zero(LONGS), gained = result, info = result;
+            for(int r = 0; r < 4; r++) {
+                LongVector key = b.lanewise(VectorOperators.LSHR, 16 * r).and(0xFFFFL);
+                ((IntVector) key.convertShape(VectorOperators.L2I, INDICES, 0)).intoArray(index, 0);
+                LongVector e = LongVector.fromArray(LONGS, table, 0, index, 0);
+                result = result.or(e.and(0xFFFFL).lanewise(VectorOperators.LSHL, 16 * r));
+                gained = gained.add(e.lanewise(VectorOperators.LSHR, INFO_SHIFT).and(BitBoard.SCORE_MASK));
+                info = info.or(e);
+            }
+            if(columns) result = transpose(result);
+            result.intoArray(boards, i);
+            LongVector.fromArray(LONGS, scores, i).add(gained).intoArray(scores, i);
+            // BitBoard.MOVED and WIN sit next to each other, like BoardBatch.MOVED and WON
+            LongVector f = info.lanewise(VectorOperators.LSHR, FLAG_SHIFT).and(MOVED | WON);
+            LongVector.fromArray(LONGS, flags, i).and(~MOVED).or(f).intoArray(flags, i);
+            moved += f.and(MOVED).compare(VectorOperators.NE, 0).trueCount();
+        }
+        for(; i < lanes; i++) {
+            if(moveLane(i, dir)) moved++;
+        }
+        return moved;
+    }
+
+    @Override
+    int spawn() {
+        int spawned = 0, i = 0;
+        for(int bound = LONGS.loopBound(lanes); i < bound; i += LONGS.length()) {
+            VectorMask<Long> spawning = LongVector.fromArray(LONGS, flags, i).and(MOVED).compare(VectorOperators.NE, 0);
+            if(!spawning.anyTrue()) continue;
+            LongVector b = LongVector.fromArray(LONGS, boards, i);
+            // A moved board always has an empty cell, so every spawning lane has a non-zero mask
+            LongVector empty = occupied(b).not().and(NIBBLE_MARKERS);
+            LongVector state = LongVector.fromArray(LONGS, states, i).add(GOLDEN_GAMMA);
+            LongVector k = bounded(mix(state), bitCount(empty));
+            state = state.add(GOLDEN_GAMMA);
+            LongVector roll = bounded(mix(state), LongVector.broadcast(LONGS, 100));
+            LongVector exponent = LongVector.broadcast(LONGS, 1).blend(2, roll.compare(VectorOperators.LT, fourPercent));
+            b = b.or(exponent.lanewise(VectorOperators.LSHL, selectBit(empty, k)));
+            b.intoArray(boards, i, spawning);
+            state.intoArray(states, i, spawning);
+            spawned += spawning.trueCount();
+        }
+        for(; i < lanes; i++) {
+            if((flags[i] & MOVED) != 0) {
+                spawnLane(i);
+                spawned++;
+            }
+        }
+        return spawned;
+    }
+
+    @Override
+    int gameOver() {
+        int over = 0, i = 0;
+        for(int bound = LONGS.loopBound(lanes); i < bound; i += LONGS.length()) {
+            LongVector b = LongVector.fromArray(LONGS, boards, i);
+            LongVector maxed = b.and(b.lanewise(VectorOperators.LSHR, 1)).and(b.lanewise(VectorOperators.LSHR, 2))
+                    .and(b.lanewise(VectorOperators.LSHR, 3)).and(NIBBLE_MARKERS);
+            LongVector sameRight = occupied(b.lanewise(VectorOperators.XOR, b.lanewise(VectorOperators.LSHR, 4)))
+                    .not().and(H_NEIGHBOURS);
+            LongVector sameBelow = occupied(b.lanewise(VectorOperators.XOR, b.lanewise(VectorOperators.LSHR, 16)))
+                    .not().and(V_NEIGHBOURS);
+            LongVector merges = sameRight.or(sameBelow).and(maxed.not());
+            VectorMask<Long> isOver = occupied(b).compare(VectorOperators.EQ, NIBBLE_MARKERS)
+                    .and(merges.compare(VectorOperators.EQ, 0));
+            LongVector f = LongVector.fromArray(LONGS, flags, i);
+            f.blend(f.or(OVER), isOver).intoArray(flags, i);
+            over += isOver.trueCount();
+        }
+        for(; i < lanes; i++) {
+            if(gameOverLane(i)) over++;
+        }
+        return over;
+    }
+
+    // BitBoard.occupiedMask in lanes: the low bit of every non-zero nibble
+    private static LongVector occupied(LongVector b) {
+        LongVector x = b.or(b.lanewise(VectorOperators.LSHR, 1));
+        return x.or(x.lanewise(VectorOperators.LSHR, 2)).and(NIBBLE_MARKERS);
+    }
+
+    private static LongVector transpose(LongVector b) {
+        LongVector a = b.and(0xF0F00F0FF0F00F0FL)
+                .or(b.and(0x0000F0F00000F0F0L).lanewise(VectorOperators.LSHL, 12))
+                .or(b.lanewise(VectorOperators.LSHR, 12).and(0x0000F0F00000F0F0L));
+        return a.and(0xFF00FF0000FF00FFL)
+                .or(a.lanewise(VectorOperators.LSHR, 24).and(0x00000000FF00FF00L))
+                .or(a.and(0x00000000FF00FF00L).lanewise(VectorOperators.LSHL, 24));
+    }
+
+    private static LongVector mix(LongVector z) {
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xBF58476D1CE4E5B9L);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94D049BB133111EBL);
+        return z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+    }
+
+    // SpawnRandom.nextInt(bound) on a drawn long
+    private static LongVector bounded(LongVector r, LongVector bound) {
+        return r.lanewise(VectorOperators.LSHR, 32).mul(bound).lanewise(VectorOperators.LSHR, 32);
+    }
+
+    private static LongVector bitCount(LongVector x) {
+        x = x.sub(x.lanewise(VectorOperators.LSHR, 1).and(0x5555555555555555L));
+        x = x.and(0x3333333333333333L).add(x.lanewise(VectorOperators.LSHR, 2).and(0x3333333333333333L));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F0F0F0F0F0F0FL);
+        return x.mul(0x0101010101010101L).lanewise(VectorOperators.LSHR, 56);
+    }
+
+    // GameEngine.selectBit in lanes
+    private static LongVector selectBit(LongVector mask, LongVector k) {
+        LongVector pos = LongVector.zero(LONGS);
+        for(int width = 32; width > 0; width >>>= 1) {
+            LongVector low = bitCount(mask.lanewise(VectorOperators.LSHR, pos).and((1L << width) - 1));
+            VectorMask<Long> above = k.compare(VectorOperators.GE, low);
+            k = k.sub(low, above);
+            pos = pos.add(width, above);
+        }
+        return pos;
+    }
+}
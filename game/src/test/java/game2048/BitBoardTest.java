@@ -0,0 +1,208 @@
+package game2048;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// BitBoard against the original GameWindow rules: moveUp/Down/Left/Right and isGameOver below
+// are the pre-bitboard int[][] loops, kept verbatim apart from returning the score and flags.
+// Exponents stay at or below 14: BitBoard refuses to merge two 32768s (a nibble can't hold the
+// result), which the old int code never got far enough to do.
+class BitBoardTest {
+    private static final int SIZE = 4;
+
+    @Test
+    void everyLineSlidesLikeTheOriginalLoops() {
+        for(int line = 0; line < 65536; line++) {
+            if(maxNibble(line) > 14) continue;
+            long row = line, column = 0;
+            for(int i = 0; i < 4; i++) column |= (long) ((line >>> (4 * i)) & 0xF) << (16 * i);
+            for(int dir = 0; dir < 4; dir++) {
+                check(row, dir);
+                check(column, dir);
+            }
+        }
+    }
+
+    @Test
+    void randomBoardsMoveLikeTheOriginalLoops() {
+        Random rnd = new Random(2048);
+        for(int n = 0; n < 200_000; n++) {
+            long board = randomBoard(rnd, n % 3 == 0 ? 15 : 5, n % 4 == 0);
+            int legal = 0;
+            for(int dir = 0; dir < 4; dir++) {
+                if(check(board, dir)) legal |= 1 << dir;
+            }
+            assertEquals(legal, BitBoard.legalMoves(board), () -> "legal moves of " + Long.toHexString(board));
+            assertEquals(isGameOver(BitBoard.toGrid(board)), BitBoard.isGameOver(board), () -> "game over of " + Long.toHexString(board));
+        }
+    }
+
+    // Compares one move with the original loop; true if it moved
+    private static boolean check(long board, int dir) {
+        int[][] grid = BitBoard.toGrid(board);
+        long result = reference(grid, dir);
+        int info = BitBoard.moveInfo(board, dir);
+        String where = Long.toHexString(board) + " dir " + dir;
+        assertEquals(BitBoard.fromGrid(grid), BitBoard.move(board, dir), where);
+        assertEquals((int) result, info & BitBoard.SCORE_MASK, () -> "score of " + where);
+        assertEquals((result & MOVED) != 0, (info & BitBoard.MOVED) != 0, () -> "moved flag of " + where);
+        assertEquals((result & WIN) != 0, (info & BitBoard.WIN) != 0, () -> "win flag of " + where);
+        return (result & MOVED) != 0;
+    }
+
+    // Exponents below `range`, small ones making merges common; some cells left empty unless `full`
+    private static long randomBoard(Random rnd, int range, boolean full) {
+        long board = 0;
+        for(int cell = 0; cell < 16; cell++) {
+            if(full || rnd.nextInt(4) != 0) board |= (long) (full ? 1 + rnd.nextInt(range - 1) : rnd.nextInt(range)) << (4 * cell);
+        }
+        return board;
+    }
+
+    private static int maxNibble(int line) {
+        int max = 0;
+        for(int i = 0; i < 4; i++) max = Math.max(max, (line >>> (4 * i)) & 0xF);
+        return max;
+    }
+
+    // The original rules, on tile values; returns the score | MOVED | WIN
+
+    private static final long MOVED = 1L << 32, WIN = 1L << 33;
+    private static int score;
+    private static boolean winReached;
+
+    private static long reference(int[][] grid, int dir) {
+        score = 0;
+        winReached = false;
+        boolean moved;
+        switch(dir) {
+            case BitBoard.UP: moved = moveUp(grid); break;
+            case BitBoard.DOWN: moved = moveDown(grid); break;
+            case BitBoard.LEFT: moved = moveLeft(grid); break;
+            default: moved = moveRight(grid); break;
+        }
+        return score | (moved ? MOVED : 0) | (winReached ? WIN : 0);
+    }
+
+    private static boolean moveUp(int[][] grid) {
+        boolean moved = false;
+        for(int col=0; col < SIZE; col++) {
+            for(int row=1; row < SIZE; row++) {
+                if(grid[row][col] != 0) {
+                    int r = row;
+                    while(r > 0 && grid[r-1][col] == 0) {
+                        grid[r-1][col] = grid[r][col];
+                        grid[r][col] = 0;
+                        r--;
+                        moved = true;
+                    }
+                    if(r > 0 && grid[r-1][col] == grid[r][col]) {
+                        grid[r-1][col] *= 2;
+                        score += grid[r-1][col];
+                        grid[r][col] = 0;
+                        moved = true;
+                        if(grid[r-1][col] == 2048) winReached = true;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static boolean moveDown(int[][] grid) {
+        boolean moved = false;
+        for(int col=0; col < SIZE; col++) {
+            for(int row=SIZE-2; row >= 0; row--) {
+                if(grid[row][col] != 0) {
+                    int r = row;
+                    while(r < SIZE-1 && grid[r+1][col] == 0) {
+                        grid[r+1][col] = grid[r][col];
+                        grid[r][col] = 0;
+                        r++;
+                        moved = true;
+                    }
+                    if(r < SIZE-1 && grid[r+1][col] == grid[r][col]) {
+                        grid[r+1][col] *= 2;
+                        score += grid[r+1][col];
+                        grid[r][col] = 0;
+                        moved = true;
+                        if(grid[r+1][col] == 2048) winReached = true;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static boolean moveLeft(int[][] grid) {
+        boolean moved = false;
+        for(int row=0; row < SIZE; row++) {
+            for(int col=1; col < SIZE; col++) {
+                if(grid[row][col] != 0) {
+                    int c = col;
+                    while(c > 0 && grid[row][c-1] == 0) {
+                        grid[row][c-1] = grid[row][c];
+                        grid[row][c] = 0;
+                        c--;
+                        moved = true;
+                    }
+                    if(c > 0 && grid[row][c-1] == grid[row][c]) {
+                        grid[row][c-1] *= 2;
+                        score += grid[row][c-1];
+                        grid[row][c] = 0;
+                        moved = true;
+                        if(grid[row][c-1] == 2048) winReached = true;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static boolean moveRight(int[][] grid) {
+        boolean moved = false;
+        for(int row=0; row < SIZE; row++) {
+            for(int col=SIZE-2; col >= 0; col--) {
+                if(grid[row][col] != 0) {
+                    int c = col;
+                    while(c < SIZE-1 && grid[row][c+1] == 0) {
+                        grid[row][c+1] = grid[row][c];
+                        grid[row][c] = 0;
+                        c++;
+                        moved = true;
+                    }
+                    if(c < SIZE-1 && grid[row][c+1] == grid[row][c]) {
+                        grid[row][c+1] *= 2;
+                        score += grid[row][c+1];
+                        grid[row][c] = 0;
+                        moved = true;
+                        if(grid[row][c+1] == 2048) winReached = true;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static boolean isGridFull(int[][] grid) {
+        for(int[] row : grid) for(int val : row) if(val == 0) return false;
+        return true;
+    }
+
+    private static boolean isGameOver(int[][] grid) {
+        if(!isGridFull(grid)) return false;
+        for(int row=0; row < SIZE; row++) {
+            for(int col=0; col < SIZE-1; col++) {
+                if(grid[row][col] == grid[row][col+1]) return false;
+            }
+        }
+        for(int col=0; col < SIZE; col++) {
+            for(int row=0; row < SIZE-1; row++) {
+                if(grid[row][col] == grid[row+1][col]) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package game2048;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// The Vector API batch, the scalar batch and one GameEngine per lane, stepped side by side
+// through whole games and compared after every move, spawn and game-over pass. The lane count
+// is not a multiple of any vector length, so the scalar tail of each kernel is covered as well.
+// Surefire runs with --add-modules jdk.incubator.vector (see game/pom.xml).
+class BoardBatchTest {
+    private static final int LANES = 1003;
+
+    @Test
+    void createPicksTheVectorPath() {
+        assertTrue(BoardBatch.vectorAvailable(), "jdk.incubator.vector is not resolved");
+        assertTrue(BoardBatch.create(LANES, GameEngine.FOUR_PERCENT) instanceof VectorBoardBatch);
+    }
+
+    @Test
+    void batchesPlayTheSameGamesAsGameEngine() {
+        for(int fourPercent : new int[] {GameEngine.FOUR_PERCENT, 50}) {
+            for(long seed = 0; seed < 3; seed++) playSideBySide(seed, fourPercent);
+        }
+    }
+
+    @Test
+    void gameOverMatchesBitBoardOnFullBoards() {
+        Random rnd = new Random(4);
+        BoardBatch scalar = new BoardBatch(LANES, GameEngine.FOUR_PERCENT);
+        BoardBatch vector = new VectorBoardBatch(LANES, GameEngine.FOUR_PERCENT);
+        for(int round = 0; round < 2000; round++) {
+            // Few distinct exponents make neighbouring pairs common; 15 checks two 32768s stay put
+            int low = round % 2 == 0 ? 1 : 12, range = round % 4 < 2 ? 4 : 16 - low;
+            for(int i = 0; i < LANES; i++) {
+                long board = 0;
+                for(int cell = 0; cell < 16; cell++) board |= (long) (low + rnd.nextInt(range)) << (4 * cell);
+                scalar.boards[i] = vector.boards[i] = board;
+                scalar.flags[i] = vector.flags[i] = 0;
+            }
+            int over = 0;
+            for(int i = 0; i < LANES; i++) if(BitBoard.isGameOver(scalar.boards[i])) over++;
+            assertEquals(over, scalar.gameOver());
+            assertEquals(over, vector.gameOver());
+            assertArrayEquals(scalar.flags, vector.flags);
+            for(int i = 0; i < LANES; i++) {
+                assertEquals(BitBoard.isGameOver(scalar.boards[i]), (scalar.flags[i] & BoardBatch.OVER) != 0,
+                        Long.toHexString(scalar.boards[i]));
+            }
+        }
+    }
+
+    private static void playSideBySide(long seed, int fourPercent) {
+        BoardBatch scalar = new BoardBatch(LANES, fourPercent);
+        BoardBatch vector = new VectorBoardBatch(LANES, fourPercent);
+        GameEngine[] engines = new GameEngine[LANES];
+        long next = seed;
+        for(int i = 0; i < LANES; i++) {
+            engines[i] = new GameEngine(4, 0, new SpawnRandom.SplitMix(), fourPercent);
+            engines[i].reset(next);
+            next = SpawnRandom.mix(next + BoardBatch.GOLDEN_GAMMA);
+        }
+        scalar.reset(seed);
+        vector.reset(seed);
+        Random directions = new Random(seed);
+        for(int step = 0; ; step++) {
+            String where = "seed " + seed + ", " + fourPercent + "% fours, step " + step;
+            int over = 0;
+            for(GameEngine e : engines) if(e.isGameOver()) over++;
+            assertEquals(over, scalar.gameOver(), where);
+            assertEquals(over, vector.gameOver(), where);
+            compare(scalar, vector, engines, where);
+            if(over == LANES) break;
+
+            int dir = directions.nextInt(4), moved = 0;
+            for(GameEngine e : engines) if(e.move(dir)) moved++;
+            assertEquals(moved, scalar.move(dir), where);
+            assertEquals(moved, vector.move(dir), where);
+            int spawned = 0;
+            for(int i = 0; i < LANES; i++) {
+                if((scalar.flags[i] & BoardBatch.MOVED) != 0 && engines[i].addNewTile()) spawned++;
+            }
+            assertEquals(spawned, scalar.spawn(), where);
+            assertEquals(spawned, vector.spawn(), where);
+        }
+    }
+
+    private static void compare(BoardBatch scalar, BoardBatch vector, GameEngine[] engines, String where) {
+        assertArrayEquals(scalar.boards, vector.boards, where);
+        assertArrayEquals(scalar.scores, vector.scores, where);
+        assertArrayEquals(scalar.states, vector.states, where);
+        assertArrayEquals(scalar.flags, vector.flags, where);
+        for(int i = 0; i < LANES; i++) {
+            GameEngine e = engines[i];
+            String lane = where + ", lane " + i;
+            assertEquals(e.getBoard(), scalar.boards[i], lane);
+            assertEquals(e.getScore(), scalar.scores[i], lane);
+            assertEquals(e.isWinReached(), (scalar.flags[i] & BoardBatch.WON) != 0, lane);
+            assertEquals(e.isGameOver(), (scalar.flags[i] & BoardBatch.OVER) != 0, lane);
+        }
+    }
+}
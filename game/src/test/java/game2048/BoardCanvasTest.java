@@ -0,0 +1,63 @@
+package game2048;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// computeSlide/mergeCells against ByteBoard.move: the tiles sent to each cell have to add up to
+// the moved board, and the pop set has to be exactly the cells more than one tile landed in.
+class BoardCanvasTest {
+
+    @Test
+    void slidingIntoAnEmptyCellIsNotAMerge() {
+        assertEquals(0L, pops(0, 1, 0, 0, BitBoard.LEFT));
+        assertEquals(0L, pops(1, 0, 2, 0, BitBoard.RIGHT));
+        assertEquals(0L, pops(1, 2, 3, 4, BitBoard.LEFT));
+        assertEquals(0b0001L, pops(1, 1, 0, 0, BitBoard.LEFT));
+        assertEquals(0b0001L, pops(0, 1, 0, 1, BitBoard.LEFT));
+        assertEquals(0b1000L, pops(2, 1, 1, 0, BitBoard.RIGHT));
+        assertEquals(0b1100L, pops(1, 1, 1, 1, BitBoard.RIGHT));
+    }
+
+    @Test
+    void randomSlidesReplayToTheMovedBoard() {
+        Random rnd = new Random(2048);
+        for(int n = 0; n < 100_000; n++) {
+            int size = 3 + rnd.nextInt(6), dir = rnd.nextInt(4);
+            byte[] before = new byte[size * size];
+            for(int cell = 0; cell < before.length; cell++) before[cell] = (byte) (rnd.nextInt(3) == 0 ? 0 : 1 + rnd.nextInt(4));
+            int[] dest = new int[before.length];
+            BoardCanvas.computeSlide(before, size, dir, dest);
+            long merged = BoardCanvas.mergeCells(before, dest);
+
+            // Merges chain (a merged tile can take the next equal tile), so compare tile value sums
+            long[] landed = new long[before.length];
+            int[] sources = new int[before.length];
+            long expected = 0;
+            for(int cell = 0; cell < before.length; cell++) {
+                if(before[cell] == 0) continue;
+                landed[dest[cell]] += 1L << before[cell];
+                if(++sources[dest[cell]] > 1) expected |= 1L << dest[cell];
+            }
+            byte[] moved = before.clone();
+            ByteBoard.move(moved, size, dir);
+            for(int cell = 0; cell < before.length; cell++) {
+                assertEquals(moved[cell] == 0 ? 0 : 1L << moved[cell], landed[cell], "cell " + cell);
+            }
+            assertEquals(expected, merged);
+        }
+    }
+
+    // Pop set of a 4x4 board whose top row is `a b c d` and the rest empty
+    private static long pops(int a, int b, int c, int d, int dir) {
+        byte[] before = new byte[16];
+        before[0] = (byte) a;
+        before[1] = (byte) b;
+        before[2] = (byte) c;
+        before[3] = (byte) d;
+        int[] dest = new int[before.length];
+        BoardCanvas.computeSlide(before, 4, dir, dest);
+        return BoardCanvas.mergeCells(before, dest);
+    }
+}